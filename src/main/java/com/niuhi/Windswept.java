@@ -1,13 +1,26 @@
 package com.niuhi;
 
 import com.niuhi.debug.DebugCommands;
+import com.niuhi.entity.EntityInterestManager;
+import com.niuhi.entity.EntityStateStore;
+import com.niuhi.particle.AmbientParticleStore;
+import com.niuhi.particle.DeferredSpawnWheel;
 import com.niuhi.particle.ParticleRegistry;
+import com.niuhi.particle.SpawnGate;
+import com.niuhi.particle.render.LightCache;
+import com.niuhi.player.FootprintDecals;
+import com.niuhi.player.FootprintSurfaceTable;
 import com.niuhi.player.FootprintSystem;
 import com.niuhi.player.RunningCloudsSystem;
 import com.niuhi.sounds.AmbientSoundSystem;
 import com.niuhi.sounds.SoundEvents;
 import com.niuhi.water.*;
 import com.niuhi.weather.wind.WindSystem;
+import com.niuhi.world.ColumnCache;
+import com.niuhi.world.EnvironmentWorker;
+import com.niuhi.world.ScanScheduler;
+import com.niuhi.world.SectionFlags;
+import com.niuhi.world.WaterColorCache;
 import net.fabricmc.api.ClientModInitializer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -23,6 +36,21 @@ public class Windswept implements ClientModInitializer {
 
 		// Register all particles
 		ParticleRegistry.registerParticles();
+		AmbientParticleStore.register();
+		DeferredSpawnWheel.register();
+		SpawnGate.register();
+		LightCache.register();
+
+		// World Scanning
+		ScanScheduler.register();
+		EnvironmentWorker.register();
+		SectionFlags.register();
+		ColumnCache.register();
+		WaterColorCache.register();
+
+		// Entity State
+		EntityStateStore.register();
+		EntityInterestManager.register();
 
 		// Water Systems
 		CascadeSystem.register();
@@ -32,7 +60,9 @@ public class Windswept implements ClientModInitializer {
 		EntitySplashSystem.register();
 
 		// Player Systems
+		FootprintSurfaceTable.register();
 		FootprintSystem.register();
+		FootprintDecals.register();
 		RunningCloudsSystem.register();
 
 		// Weather Systems
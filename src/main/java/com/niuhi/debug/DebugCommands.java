@@ -5,13 +5,27 @@ import com.mojang.brigadier.arguments.IntegerArgumentType;
 import com.mojang.brigadier.context.CommandContext;
 import com.mojang.brigadier.exceptions.CommandSyntaxException;
 import com.niuhi.Windswept;
+import com.niuhi.entity.EntityInterestManager;
+import com.niuhi.particle.AmbientParticleStore;
+import com.niuhi.particle.DeferredSpawnWheel;
+import com.niuhi.particle.SpawnGate;
 import com.niuhi.particle.player.PlayerParticleTypes;
+import com.niuhi.particle.render.CountingVertexConsumer;
+import com.niuhi.particle.render.LightCache;
+import com.niuhi.particle.render.NoCullParticleSheet;
 import com.niuhi.particle.water.WaterParticleTypes;
+import com.niuhi.particle.weather.wind.WindParticleTypes;
 import com.niuhi.water.RippleSystem;
+import com.niuhi.water.WaveSystem;
 import com.niuhi.weather.wind.WindSystem;
+import com.niuhi.world.ScanScheduler;
 import net.fabricmc.fabric.api.client.command.v2.ClientCommandRegistrationCallback;
 import net.fabricmc.fabric.api.client.command.v2.FabricClientCommandSource;
 import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.particle.Particle;
+import net.minecraft.client.render.Camera;
+import net.minecraft.particle.SimpleParticleType;
+import net.minecraft.registry.Registries;
 import net.minecraft.text.Text;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.Vec3d;
@@ -20,12 +34,32 @@ import net.minecraft.util.math.random.Random;
 import static net.fabricmc.fabric.api.client.command.v2.ClientCommandManager.*;
 
 public class DebugCommands {
+    // Particles on the no-cull sheet and the vertices one of them must emit, 4 per quad. Sending back faces again
+    // would double these
+    private static final SimpleParticleType[] NO_CULL_PARTICLES = {WindParticleTypes.WIND};
+    private static final int[] NO_CULL_VERTICES = {4};
+    // Same for the no-cull types of the ambient particle store, with the particle types that spawn them
+    private static final int[] NO_CULL_STORE_TYPES = {
+            AmbientParticleStore.WAVE, AmbientParticleStore.FOAM, AmbientParticleStore.SPLASH_WALL, AmbientParticleStore.SPLASH_FOAM_WALL
+    };
+    private static final SimpleParticleType[] NO_CULL_STORE_PARTICLES = {
+            WaterParticleTypes.WAVE, WaterParticleTypes.FOAM, WaterParticleTypes.WATERSPLASH, WaterParticleTypes.WATERSPLASHFOAM
+    };
+    private static final int[] NO_CULL_STORE_VERTICES = {4, 4, 16, 16};
+
     public static void register() {
         ClientCommandRegistrationCallback.EVENT.register((dispatcher, registryAccess) -> {
             registerWindCommands(dispatcher);
             registerCascadeCommand(dispatcher);
             registerRippleCommand(dispatcher);
             registerDustCloudCommand(dispatcher);
+            registerBudgetCommand(dispatcher);
+            registerWaveWindowCommand(dispatcher);
+            registerInterestCommand(dispatcher);
+            registerSpawnGateCommand(dispatcher);
+            registerLightCacheCommand(dispatcher);
+            registerVertexCheckCommand(dispatcher);
+            registerAmbientCommand(dispatcher);
         });
     }
 
@@ -76,14 +110,15 @@ public class DebugCommands {
         float scale = 0.5f; // Moderate scale
         // Schedule particle spawning for the duration
         for (int i = 0; i < ticks; i += 5) {
-            client.world.addParticleClient(
+            DeferredSpawnWheel.schedule(
                     WaterParticleTypes.CASCADE,
                     pos.getX() + 0.5 + (random.nextDouble() - 0.5) * 0.5,
                     pos.getY() + 1.0,
                     pos.getZ() + 0.5 + (random.nextDouble() - 0.5) * 0.5,
                     scale,
                     0.0,
-                    0.0
+                    0.0,
+                    i
             );
         }
         context.getSource().sendFeedback(Text.literal("Spawning cascade particles at player position for " + duration + " seconds."));
@@ -115,14 +150,15 @@ public class DebugCommands {
                         double waterHeight = pos.getY() + 1.0; // Assume surface level
                         double offsetX = random.nextDouble() * 0.6 - 0.3;
                         double offsetZ = random.nextDouble() * 0.6 - 0.3;
-                        client.world.addParticleClient(
+                        DeferredSpawnWheel.schedule(
                                 WaterParticleTypes.RIPPLE,
                                 pos.getX() + 0.5 + offsetX,
                                 waterHeight + 0.01,
                                 pos.getZ() + 0.5 + offsetZ,
                                 settings.sizeMultiplier(),
                                 settings.maxAge(),
-                                settings.animationSpeed()
+                                settings.animationSpeed(),
+                                i
                         );
                     }
                 }
@@ -161,10 +197,11 @@ public class DebugCommands {
                         double motionX = (random.nextDouble() - 0.5) * 0.015;
                         double motionY = 0.03 + random.nextDouble() * 0.03;
                         double motionZ = (random.nextDouble() - 0.5) * 0.015;
-                        client.world.addParticleClient(
+                        DeferredSpawnWheel.schedule(
                                 PlayerParticleTypes.DUST_CLOUD,
                                 x, y, z,
-                                motionX, motionY, motionZ
+                                motionX, motionY, motionZ,
+                                i
                         );
                     }
                 }
@@ -173,4 +210,173 @@ public class DebugCommands {
         context.getSource().sendFeedback(Text.literal("Spawning dust clouds in a 5x5 area around player for " + duration + " seconds."));
         return 1;
     }
-}
\ No newline at end of file
+
+    private static void registerBudgetCommand(CommandDispatcher<FabricClientCommandSource> dispatcher) {
+        dispatcher.register(literal("windswept")
+                .then(literal("budget")
+                        .executes(DebugCommands::showBudget)
+                        .then(argument("micros", IntegerArgumentType.integer(0, 50000))
+                                .executes(context -> setBudget(context, IntegerArgumentType.getInteger(context, "micros"))))));
+    }
+
+    private static int showBudget(CommandContext<FabricClientCommandSource> context) {
+        context.getSource().sendFeedback(Text.literal("Scan budget is " + ScanScheduler.getBudgetMicros() + " microseconds per tick."));
+        return 1;
+    }
+
+    private static int setBudget(CommandContext<FabricClientCommandSource> context, int micros) {
+        ScanScheduler.setBudgetMicros(micros);
+        context.getSource().sendFeedback(Text.literal("Set scan budget to " + micros + " microseconds per tick."));
+        return 1;
+    }
+
+    private static void registerWaveWindowCommand(CommandDispatcher<FabricClientCommandSource> dispatcher) {
+        dispatcher.register(literal("windswept")
+                .then(literal("wavewindow")
+                        .then(argument("radius", IntegerArgumentType.integer(0, 16))
+                                .executes(context -> setWaveWindow(context, IntegerArgumentType.getInteger(context, "radius"))))));
+    }
+
+    private static int setWaveWindow(CommandContext<FabricClientCommandSource> context, int radius) {
+        WaveSystem.setWindowRadius(radius);
+        int side = radius * 2 + 1;
+        context.getSource().sendFeedback(Text.literal("Set wave openness window to " + side + "x" + side + "."));
+        return 1;
+    }
+
+    private static void registerInterestCommand(CommandDispatcher<FabricClientCommandSource> dispatcher) {
+        dispatcher.register(literal("windswept")
+                .then(literal("interest")
+                        .executes(DebugCommands::showInterest)));
+    }
+
+    private static int showInterest(CommandContext<FabricClientCommandSource> context) {
+        context.getSource().sendFeedback(Text.literal("Entities near: " + EntityInterestManager.getCount(EntityInterestManager.Tier.NEAR) +
+                ", mid: " + EntityInterestManager.getCount(EntityInterestManager.Tier.MID) +
+                ", far: " + EntityInterestManager.getCount(EntityInterestManager.Tier.FAR) + "."));
+        return 1;
+    }
+
+    private static void registerSpawnGateCommand(CommandDispatcher<FabricClientCommandSource> dispatcher) {
+        dispatcher.register(literal("windswept")
+                .then(literal("spawngate")
+                        .executes(DebugCommands::showSpawnGate)
+                        .then(literal("reset")
+                                .executes(DebugCommands::resetSpawnGate))
+                        .then(argument("distance", IntegerArgumentType.integer(8, 256))
+                                .executes(context -> setSpawnGateDistance(context, IntegerArgumentType.getInteger(context, "distance"))))));
+    }
+
+    private static int showSpawnGate(CommandContext<FabricClientCommandSource> context) {
+        context.getSource().sendFeedback(Text.literal("Spawns passed: " + SpawnGate.getPassed() +
+                ", culled by distance: " + SpawnGate.getCulled(SpawnGate.Reason.DISTANCE) +
+                ", frustum: " + SpawnGate.getCulled(SpawnGate.Reason.FRUSTUM) +
+                ", covered: " + SpawnGate.getCulled(SpawnGate.Reason.COVERED) +
+                ". Max distance is " + SpawnGate.getMaxDistance() + " blocks."));
+        return 1;
+    }
+
+    private static int resetSpawnGate(CommandContext<FabricClientCommandSource> context) {
+        SpawnGate.resetCounters();
+        context.getSource().sendFeedback(Text.literal("Reset spawn gate counters."));
+        return 1;
+    }
+
+    private static int setSpawnGateDistance(CommandContext<FabricClientCommandSource> context, int distance) {
+        SpawnGate.setMaxDistance(distance);
+        context.getSource().sendFeedback(Text.literal("Set spawn gate max distance to " + distance + " blocks."));
+        return 1;
+    }
+
+    private static void registerLightCacheCommand(CommandDispatcher<FabricClientCommandSource> dispatcher) {
+        dispatcher.register(literal("windswept")
+                .then(literal("lightcache")
+                        .executes(DebugCommands::showLightCache)
+                        .then(literal("reset")
+                                .executes(DebugCommands::resetLightCache))));
+    }
+
+    private static int showLightCache(CommandContext<FabricClientCommandSource> context) {
+        long hits = LightCache.getHits();
+        long lookups = hits + LightCache.getMisses();
+        long percent = lookups > 0 ? hits * 100 / lookups : 0;
+        context.getSource().sendFeedback(Text.literal("Light cache hits: " + hits + ", misses: " + LightCache.getMisses() +
+                " (" + percent + "% hit rate)."));
+        return 1;
+    }
+
+    private static int resetLightCache(CommandContext<FabricClientCommandSource> context) {
+        LightCache.resetCounters();
+        context.getSource().sendFeedback(Text.literal("Reset light cache counters."));
+        return 1;
+    }
+
+    private static void registerVertexCheckCommand(CommandDispatcher<FabricClientCommandSource> dispatcher) {
+        dispatcher.register(literal("windswept")
+                .then(literal("vertexcheck")
+                        .executes(DebugCommands::checkVertices)));
+    }
+
+    // Renders one of each no-cull particle into a counting consumer and compares the vertices with the expected ones
+    private static int checkVertices(CommandContext<FabricClientCommandSource> context) {
+        MinecraftClient client = MinecraftClient.getInstance();
+        if (client.player == null || client.world == null) {
+            context.getSource().sendError(Text.literal("Player or world not available."));
+            return 0;
+        }
+        Vec3d pos = client.player.getPos();
+        Camera camera = client.gameRenderer.getCamera();
+        CountingVertexConsumer counter = new CountingVertexConsumer();
+        int failures = 0;
+        for (int i = 0; i < NO_CULL_PARTICLES.length; i++) {
+            String name = Registries.PARTICLE_TYPE.getId(NO_CULL_PARTICLES[i]).toString();
+            Particle particle = client.particleManager.addParticle(NO_CULL_PARTICLES[i], pos.x, pos.y + 1.0, pos.z, 1.0, 1.0, 0.0);
+            if (particle == null) {
+                context.getSource().sendError(Text.literal(name + ": could not be created."));
+                failures++;
+                continue;
+            }
+            counter.reset();
+            particle.render(counter, camera, 0.0f);
+            particle.markDead();
+            if (particle.getType() != NoCullParticleSheet.SHEET) {
+                context.getSource().sendError(Text.literal(name + ": not on the no-cull sheet."));
+                failures++;
+            } else if (counter.getVertices() != NO_CULL_VERTICES[i]) {
+                context.getSource().sendError(Text.literal(name + ": " + counter.getVertices() + " vertices, expected " + NO_CULL_VERTICES[i] + "."));
+                failures++;
+            }
+        }
+        // Store rows are written straight into the counter and removed again before the next tick
+        for (int i = 0; i < NO_CULL_STORE_TYPES.length; i++) {
+            String name = Registries.PARTICLE_TYPE.getId(NO_CULL_STORE_PARTICLES[i]).toString();
+            int row = AmbientParticleStore.add(client.world, NO_CULL_STORE_TYPES[i], pos.x, pos.y + 1.0, pos.z, 1.0, 1.0, 0.0);
+            if (row < 0) {
+                context.getSource().sendError(Text.literal(name + ": could not be created."));
+                failures++;
+                continue;
+            }
+            counter.reset();
+            AmbientParticleStore.emit(counter, client.world, row, camera.getPos(), 0.0f);
+            AmbientParticleStore.remove(row);
+            if (counter.getVertices() != NO_CULL_STORE_VERTICES[i]) {
+                context.getSource().sendError(Text.literal(name + ": " + counter.getVertices() + " vertices, expected " + NO_CULL_STORE_VERTICES[i] + "."));
+                failures++;
+            }
+        }
+        int total = NO_CULL_PARTICLES.length + NO_CULL_STORE_TYPES.length;
+        context.getSource().sendFeedback(Text.literal("Vertex check: " + (total - failures) + " of " + total + " particles passed."));
+        return failures == 0 ? 1 : 0;
+    }
+
+    private static void registerAmbientCommand(CommandDispatcher<FabricClientCommandSource> dispatcher) {
+        dispatcher.register(literal("windswept")
+                .then(literal("ambient")
+                        .executes(DebugCommands::showAmbient)));
+    }
+
+    private static int showAmbient(CommandContext<FabricClientCommandSource> context) {
+        context.getSource().sendFeedback(Text.literal("Ambient particles alive: " + AmbientParticleStore.getCount() + "."));
+        return 1;
+    }
+}
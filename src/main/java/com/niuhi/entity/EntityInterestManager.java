@@ -0,0 +1,165 @@
+package com.niuhi.entity;
+
+import it.unimi.dsi.fastutil.ints.Int2IntMap;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientEntityEvents;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientTickEvents;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientWorldEvents;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.render.Camera;
+import net.minecraft.entity.Entity;
+import net.minecraft.util.math.Vec3d;
+
+import java.util.Arrays;
+
+// Sorts the client's entities into distance tiers around the camera, so per entity systems skip what nobody can see
+// Near entities are visited every tick, mid entities every 4th tick (spread over those ticks by entity id) and far
+// ones not at all. Entities join on load and leave on unload, and a fixed number of them is re-tiered every tick
+public class EntityInterestManager {
+    public enum Tier {
+        NEAR, MID, FAR
+    }
+
+    public static final int MID_INTERVAL = 4; // Mid entities are visited every 4th tick
+    private static final int NEAR_DISTANCE = 32; // Blocks from the camera
+    private static final int MID_DISTANCE = 64;
+    private static final int RETIER_PER_TICK = 64; // Entities whose tier is re-checked each tick
+    private static final int TIER_SHIFT = 28;
+    private static final int INDEX_MASK = (1 << TIER_SHIFT) - 1;
+    private static final Tier[] TIERS = Tier.values();
+
+    private static final Entity[][] buckets = new Entity[TIERS.length][16];
+    private static final int[] counts = new int[TIERS.length];
+    private static final Int2IntMap locations = new Int2IntOpenHashMap(); // Entity id to (tier << TIER_SHIFT) | index in its bucket
+    private static int cursor = 0; // Position over all buckets one after another, for re-tiering
+    private static int tick = 0;
+    private static Vec3d viewPos = null;
+
+    static {
+        locations.defaultReturnValue(-1);
+    }
+
+    @FunctionalInterface
+    public interface Visitor {
+        // elapsedTicks is the number of ticks since the entity was last visited, 1 for near entities
+        void visit(Entity entity, int elapsedTicks);
+    }
+
+    public static void register() {
+        ClientEntityEvents.ENTITY_LOAD.register((entity, world) -> {
+            if (locations.get(entity.getId()) < 0) {
+                add(entity, getTierAt(entity));
+            }
+        });
+        ClientEntityEvents.ENTITY_UNLOAD.register((entity, world) -> remove(entity.getId()));
+        ClientWorldEvents.AFTER_CLIENT_WORLD_CHANGE.register((client, world) -> clear());
+        ClientTickEvents.START_CLIENT_TICK.register(client -> {
+            if (client.world != null) {
+                tick++;
+                viewPos = getViewPos(client);
+                retier();
+            }
+        });
+    }
+
+    // Visits the near entities and this tick's share of the mid ones
+    public static void forEachInterested(Visitor visitor) {
+        Entity[] near = buckets[Tier.NEAR.ordinal()];
+        for (int i = 0, count = counts[Tier.NEAR.ordinal()]; i < count; i++) {
+            visitor.visit(near[i], 1);
+        }
+        Entity[] mid = buckets[Tier.MID.ordinal()];
+        int phase = tick % MID_INTERVAL;
+        for (int i = 0, count = counts[Tier.MID.ordinal()]; i < count; i++) {
+            if (Math.floorMod(mid[i].getId(), MID_INTERVAL) == phase) {
+                visitor.visit(mid[i], MID_INTERVAL);
+            }
+        }
+    }
+
+    public static Tier getTier(Entity entity) {
+        int location = locations.get(entity.getId());
+        return location < 0 ? getTierAt(entity) : TIERS[location >>> TIER_SHIFT];
+    }
+
+    public static int getCount(Tier tier) {
+        return counts[tier.ordinal()];
+    }
+
+    private static Vec3d getViewPos(MinecraftClient client) {
+        Camera camera = client.gameRenderer.getCamera();
+        if (camera.isReady()) {
+            return camera.getPos();
+        }
+        return client.player != null ? client.player.getPos() : null;
+    }
+
+    private static Tier getTierAt(Entity entity) {
+        if (viewPos == null) {
+            return Tier.NEAR;
+        }
+        double distanceSq = entity.squaredDistanceTo(viewPos);
+        if (distanceSq <= NEAR_DISTANCE * NEAR_DISTANCE) {
+            return Tier.NEAR;
+        }
+        return distanceSq <= MID_DISTANCE * MID_DISTANCE ? Tier.MID : Tier.FAR;
+    }
+
+    // Walks a fixed number of entities round-robin over all buckets and moves those that changed tier
+    private static void retier() {
+        int total = counts[0] + counts[1] + counts[2];
+        for (int n = 0; n < Math.min(RETIER_PER_TICK, total); n++) {
+            cursor = cursor % total;
+            int tier = 0;
+            int index = cursor;
+            while (index >= counts[tier]) {
+                index -= counts[tier];
+                tier++;
+            }
+            Entity entity = buckets[tier][index];
+            Tier newTier = getTierAt(entity);
+            if (newTier.ordinal() != tier) {
+                // Moving reorders the buckets, at worst one entity is skipped or checked twice this round
+                remove(entity.getId());
+                add(entity, newTier);
+            }
+            cursor++;
+        }
+    }
+
+    private static void add(Entity entity, Tier tier) {
+        int bucket = tier.ordinal();
+        if (counts[bucket] == buckets[bucket].length) {
+            buckets[bucket] = Arrays.copyOf(buckets[bucket], counts[bucket] * 2);
+        }
+        int index = counts[bucket]++;
+        buckets[bucket][index] = entity;
+        locations.put(entity.getId(), (bucket << TIER_SHIFT) | index);
+    }
+
+    // Swaps the last entity of the bucket into the hole, so removal is O(1)
+    private static void remove(int id) {
+        int location = locations.remove(id);
+        if (location < 0) {
+            return;
+        }
+        int bucket = location >>> TIER_SHIFT;
+        int index = location & INDEX_MASK;
+        int last = --counts[bucket];
+        Entity moved = buckets[bucket][last];
+        buckets[bucket][index] = moved;
+        buckets[bucket][last] = null;
+        if (index != last) {
+            locations.put(moved.getId(), (bucket << TIER_SHIFT) | index);
+        }
+    }
+
+    private static void clear() {
+        for (int bucket = 0; bucket < buckets.length; bucket++) {
+            Arrays.fill(buckets[bucket], 0, counts[bucket], null);
+            counts[bucket] = 0;
+        }
+        locations.clear();
+        cursor = 0;
+    }
+}
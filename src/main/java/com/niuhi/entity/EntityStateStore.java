@@ -0,0 +1,155 @@
+package com.niuhi.entity;
+
+import it.unimi.dsi.fastutil.ints.Int2IntMap;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientEntityEvents;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientWorldEvents;
+import net.minecraft.entity.Entity;
+
+import java.util.Arrays;
+
+// Per entity state of the client systems, keyed by entity id instead of holding on to the entities
+// Every system claims slots once (in a static initializer) and reads and writes them by row, a row is one entity.
+// Slots are stored column-wise in primitive arrays, and rows are freed when the entity unloads, so nothing has to
+// sweep for dead entities and nothing outlives its entity
+public class EntityStateStore {
+    public static final int NO_ROW = -1;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private static final Int2IntMap rowsById = new Int2IntOpenHashMap();
+    private static int[][] intSlots = new int[0][];
+    private static long[][] longSlots = new long[0][];
+    private static double[][] doubleSlots = new double[0][];
+    private static int capacity = INITIAL_CAPACITY;
+    private static int rowCount = 0; // Rows ever handed out, freed ones wait in freeRows
+    private static int[] freeRows = new int[16];
+    private static int freeCount = 0;
+
+    static {
+        rowsById.defaultReturnValue(NO_ROW);
+    }
+
+    public static void register() {
+        ClientEntityEvents.ENTITY_UNLOAD.register((entity, world) -> remove(entity.getId()));
+        ClientWorldEvents.AFTER_CLIENT_WORLD_CHANGE.register((client, world) -> clear());
+    }
+
+    public static int allocateIntSlot() {
+        intSlots = Arrays.copyOf(intSlots, intSlots.length + 1);
+        intSlots[intSlots.length - 1] = new int[capacity];
+        return intSlots.length - 1;
+    }
+
+    public static int allocateLongSlot() {
+        longSlots = Arrays.copyOf(longSlots, longSlots.length + 1);
+        longSlots[longSlots.length - 1] = new long[capacity];
+        return longSlots.length - 1;
+    }
+
+    public static int allocateDoubleSlot() {
+        doubleSlots = Arrays.copyOf(doubleSlots, doubleSlots.length + 1);
+        doubleSlots[doubleSlots.length - 1] = new double[capacity];
+        return doubleSlots.length - 1;
+    }
+
+    // Row of the entity, created with every slot zeroed if it doesn't have one yet
+    public static int getOrCreateRow(Entity entity) {
+        int id = entity.getId();
+        int row = rowsById.get(id);
+        if (row != NO_ROW) {
+            return row;
+        }
+        if (freeCount > 0) {
+            row = freeRows[--freeCount];
+        } else {
+            if (rowCount == capacity) {
+                grow();
+            }
+            row = rowCount++;
+        }
+        rowsById.put(id, row);
+        return row;
+    }
+
+    // Row of the entity, or NO_ROW if no system has stored anything for it
+    public static int getRow(Entity entity) {
+        return rowsById.get(entity.getId());
+    }
+
+    public static int getInt(int row, int slot) {
+        return intSlots[slot][row];
+    }
+
+    public static void setInt(int row, int slot, int value) {
+        intSlots[slot][row] = value;
+    }
+
+    public static long getLong(int row, int slot) {
+        return longSlots[slot][row];
+    }
+
+    public static void setLong(int row, int slot, long value) {
+        longSlots[slot][row] = value;
+    }
+
+    public static double getDouble(int row, int slot) {
+        return doubleSlots[slot][row];
+    }
+
+    public static void setDouble(int row, int slot, double value) {
+        doubleSlots[slot][row] = value;
+    }
+
+    public static int size() {
+        return rowsById.size();
+    }
+
+    private static void remove(int id) {
+        int row = rowsById.remove(id);
+        if (row == NO_ROW) {
+            return;
+        }
+        // Zero the row now, so handing it out again needs no work
+        for (int[] slot : intSlots) {
+            slot[row] = 0;
+        }
+        for (long[] slot : longSlots) {
+            slot[row] = 0L;
+        }
+        for (double[] slot : doubleSlots) {
+            slot[row] = 0.0;
+        }
+        if (freeCount == freeRows.length) {
+            freeRows = Arrays.copyOf(freeRows, freeCount * 2);
+        }
+        freeRows[freeCount++] = row;
+    }
+
+    private static void clear() {
+        rowsById.clear();
+        for (int[] slot : intSlots) {
+            Arrays.fill(slot, 0, rowCount, 0);
+        }
+        for (long[] slot : longSlots) {
+            Arrays.fill(slot, 0, rowCount, 0L);
+        }
+        for (double[] slot : doubleSlots) {
+            Arrays.fill(slot, 0, rowCount, 0.0);
+        }
+        rowCount = 0;
+        freeCount = 0;
+    }
+
+    private static void grow() {
+        capacity *= 2;
+        for (int i = 0; i < intSlots.length; i++) {
+            intSlots[i] = Arrays.copyOf(intSlots[i], capacity);
+        }
+        for (int i = 0; i < longSlots.length; i++) {
+            longSlots[i] = Arrays.copyOf(longSlots[i], capacity);
+        }
+        for (int i = 0; i < doubleSlots.length; i++) {
+            doubleSlots[i] = Arrays.copyOf(doubleSlots[i], capacity);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.niuhi.mixin;
+
+import com.niuhi.world.BlockChangeEvents;
+import net.minecraft.block.BlockState;
+import net.minecraft.client.world.ClientWorld;
+import net.minecraft.util.math.BlockPos;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+@Mixin(ClientWorld.class)
+public abstract class ClientWorldMixin {
+    // Every block change on the client (block update packets, chunk delta updates, prediction) ends up here
+    @Inject(method = "updateListeners", at = @At("HEAD"))
+    private void onBlockChanged(BlockPos pos, BlockState oldState, BlockState newState, int flags, CallbackInfo ci) {
+        BlockChangeEvents.BLOCK_CHANGED.invoker().onBlockChanged((ClientWorld) (Object) this, pos, oldState, newState);
+    }
+}
@@ -0,0 +1,21 @@
+package com.niuhi.mixin;
+
+import com.niuhi.water.EntitySplashSystem;
+import net.minecraft.entity.Entity;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+@Mixin(Entity.class)
+public abstract class EntityMixin {
+    // Vanilla calls onSwimmingStart right when an entity starts touching water (its own splash), so entering water
+    // is caught here instead of by checking every entity every tick
+    @Inject(method = "checkWaterState", at = @At(value = "INVOKE", target = "Lnet/minecraft/entity/Entity;onSwimmingStart()V"))
+    private void onEnterWater(CallbackInfo ci) {
+        Entity entity = (Entity) (Object) this;
+        if (entity.getWorld().isClient) {
+            EntitySplashSystem.queueSplash(entity);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.niuhi.mixin;
+
+import com.niuhi.particle.render.NoCullParticleSheet;
+import net.minecraft.client.particle.ParticleManager;
+import net.minecraft.client.particle.ParticleTextureSheet;
+import org.spongepowered.asm.mixin.Final;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Mutable;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Mixin(ParticleManager.class)
+public abstract class ParticleManagerMixin {
+    @Shadow @Final @Mutable
+    private static List<ParticleTextureSheet> PARTICLE_TEXTURE_SHEETS;
+
+    // The manager only draws the sheets in this list, the no-cull sheet goes right after vanilla's translucent one
+    @Inject(method = "<clinit>", at = @At("TAIL"))
+    private static void addNoCullSheet(CallbackInfo ci) {
+        List<ParticleTextureSheet> sheets = new ArrayList<>(PARTICLE_TEXTURE_SHEETS);
+        sheets.add(sheets.indexOf(ParticleTextureSheet.PARTICLE_SHEET_TRANSLUCENT) + 1, NoCullParticleSheet.SHEET);
+        PARTICLE_TEXTURE_SHEETS = List.copyOf(sheets);
+    }
+}
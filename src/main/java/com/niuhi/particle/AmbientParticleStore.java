@@ -0,0 +1,276 @@
+package com.niuhi.particle;
+
+import com.niuhi.particle.render.NoCullParticleSheet;
+import com.niuhi.particle.render.QuadEmitter;
+import com.niuhi.world.WaterColorCache;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientTickEvents;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientWorldEvents;
+import net.fabricmc.fabric.api.client.rendering.v1.WorldRenderContext;
+import net.fabricmc.fabric.api.client.rendering.v1.WorldRenderEvents;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.particle.Particle;
+import net.minecraft.client.particle.ParticleFactory;
+import net.minecraft.client.particle.SpriteProvider;
+import net.minecraft.client.render.RenderLayer;
+import net.minecraft.client.render.VertexConsumer;
+import net.minecraft.client.render.VertexConsumerProvider;
+import net.minecraft.client.texture.Sprite;
+import net.minecraft.client.texture.SpriteAtlasTexture;
+import net.minecraft.client.world.ClientWorld;
+import net.minecraft.particle.SimpleParticleType;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.util.math.Vec3d;
+
+import java.util.Arrays;
+
+// The high volume ambient particles (shore waves and foam, entity splash walls and rings) without a particle object each
+// Every particle is a row of parallel primitive arrays, a dead row is filled with the last one so the live rows stay
+// packed at the front. Ticking is one loop over the ages, and rendering one loop per sheet that computes frame, alpha
+// and size from the age. The particle types stay registered: their factories add a row here and return no particle,
+// so emitters, the spawn wheel and vanilla's particle settings work as before
+public class AmbientParticleStore {
+    public static final int WAVE = 0;
+    public static final int FOAM = 1;
+    public static final int SPLASH_WALL = 2;
+    public static final int SPLASH_FOAM_WALL = 3;
+    public static final int SPLASH_RING = 4;
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int MAX_PARTICLES = 65536; // Spawns past this are dropped
+    private static final RenderLayer RING_LAYER = RenderLayer.getTranslucentParticle(SpriteAtlasTexture.PARTICLE_ATLAS_TEXTURE);
+
+    // Per type: sprite frames as spriteProvider.getSprite(frame, maxAge), and whether it is seen from both sides
+    private static final int[] FRAME_COUNTS = {20, 20, 9, 9, 9};
+    private static final int[] FRAME_MAX_AGES = {19, 19, 8, 8, 8};
+    private static final boolean[] NO_CULL = {true, true, true, true, false};
+    private static final SpriteFrameTable[] frames = new SpriteFrameTable[FRAME_COUNTS.length];
+
+    private static byte[] type = new byte[INITIAL_CAPACITY];
+    private static double[] x = new double[INITIAL_CAPACITY];
+    private static double[] y = new double[INITIAL_CAPACITY];
+    private static double[] z = new double[INITIAL_CAPACITY];
+    private static int[] age = new int[INITIAL_CAPACITY];
+    private static int[] maxAge = new int[INITIAL_CAPACITY];
+    private static float[] scale = new float[INITIAL_CAPACITY];
+    private static float[] red = new float[INITIAL_CAPACITY];
+    private static float[] green = new float[INITIAL_CAPACITY];
+    private static float[] blue = new float[INITIAL_CAPACITY];
+    private static float[] directionX = new float[INITIAL_CAPACITY]; // Shore normal of waves and foam
+    private static float[] directionZ = new float[INITIAL_CAPACITY];
+    private static float[] extent = new float[INITIAL_CAPACITY]; // Cliff height of waves and foam, height of splash walls, size of rings
+    private static int count = 0;
+
+    public static void register() {
+        ClientTickEvents.END_CLIENT_TICK.register(client -> {
+            if (client.world != null && !client.isPaused()) {
+                tick();
+            }
+        });
+        ClientWorldEvents.AFTER_CLIENT_WORLD_CHANGE.register((client, world) -> count = 0);
+        WorldRenderEvents.AFTER_TRANSLUCENT.register(AmbientParticleStore::render);
+    }
+
+    // Factory of a registered particle type that stores the particle here instead
+    public static class Factory implements ParticleFactory<SimpleParticleType> {
+        private final int particleType;
+
+        public Factory(int particleType, SpriteProvider spriteProvider) {
+            this.particleType = particleType;
+            frames[particleType] = new SpriteFrameTable(spriteProvider, FRAME_COUNTS[particleType], FRAME_MAX_AGES[particleType]);
+        }
+
+        @Override
+        public Particle createParticle(SimpleParticleType parameters, ClientWorld world,
+                                       double x, double y, double z,
+                                       double velocityX, double velocityY, double velocityZ) {
+            add(world, particleType, x, y, z, velocityX, velocityY, velocityZ);
+            return null;
+        }
+    }
+
+    public static int getCount() {
+        return count;
+    }
+
+    // Adds a particle with the spawn parameters its particle type takes as velocity, returns its row or -1 when full
+    public static int add(ClientWorld world, int particleType, double px, double py, double pz,
+                          double velocityX, double velocityY, double velocityZ) {
+        if (count == MAX_PARTICLES) {
+            return -1;
+        }
+        if (count == type.length) {
+            grow(Math.min(count * 2, MAX_PARTICLES));
+        }
+        // Also fills the table before the first render, for rows emitted directly
+        frames[particleType].refresh();
+        int row = count++;
+        type[row] = (byte) particleType;
+        age[row] = 0;
+        directionX[row] = 0.0f;
+        directionZ[row] = 0.0f;
+        switch (particleType) {
+            case WAVE, FOAM -> {
+                // Velocity is the shore normal and the cliff height, scale grows 0.1 per cliff block from 0.8 up to 1.5
+                double length = Math.sqrt(velocityX * velocityX + velocityZ * velocityZ);
+                directionX[row] = length > 0 ? (float) (velocityX / length) : 1.0f;
+                directionZ[row] = length > 0 ? (float) (velocityZ / length) : 0.0f;
+                extent[row] = (float) velocityY;
+                maxAge[row] = 50;
+                scale[row] = velocityY > 0 ? (float) Math.min(0.8f + 0.1f * velocityY, 1.5f) : 0.8f;
+                setPosition(row, px, py, pz);
+            }
+            case SPLASH_WALL, SPLASH_FOAM_WALL -> {
+                // Velocity is the size and height multipliers, the walls stand higher the faster the entity fell
+                float size = (float) Math.max(0.5, Math.min(2.0, velocityX));
+                extent[row] = (float) Math.max(1.0, Math.min(3.0, velocityY));
+                maxAge[row] = (int) (35 * size);
+                scale[row] = size;
+                setPosition(row, px, py + velocityY * 0.4, pz);
+            }
+            case SPLASH_RING -> {
+                float size = (float) Math.max(0.8, Math.min(3.0, velocityX));
+                extent[row] = size;
+                maxAge[row] = (int) (35 * size);
+                scale[row] = 0.8f * size;
+                setPosition(row, px, py, pz);
+            }
+        }
+        // Water colored, except the foam
+        if (particleType == FOAM || particleType == SPLASH_FOAM_WALL) {
+            red[row] = 1.0f;
+            green[row] = 1.0f;
+            blue[row] = 1.0f;
+        } else {
+            WaterColorCache.get(world, px, py, pz, red, green, blue, row);
+        }
+        return row;
+    }
+
+    // Fills the row with the last one, rows after it keep their place
+    public static void remove(int row) {
+        int last = --count;
+        type[row] = type[last];
+        x[row] = x[last];
+        y[row] = y[last];
+        z[row] = z[last];
+        age[row] = age[last];
+        maxAge[row] = maxAge[last];
+        scale[row] = scale[last];
+        red[row] = red[last];
+        green[row] = green[last];
+        blue[row] = blue[last];
+        directionX[row] = directionX[last];
+        directionZ[row] = directionZ[last];
+        extent[row] = extent[last];
+    }
+
+    private static void setPosition(int row, double px, double py, double pz) {
+        x[row] = px;
+        y[row] = py;
+        z[row] = pz;
+    }
+
+    private static void grow(int capacity) {
+        type = Arrays.copyOf(type, capacity);
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        z = Arrays.copyOf(z, capacity);
+        age = Arrays.copyOf(age, capacity);
+        maxAge = Arrays.copyOf(maxAge, capacity);
+        scale = Arrays.copyOf(scale, capacity);
+        red = Arrays.copyOf(red, capacity);
+        green = Arrays.copyOf(green, capacity);
+        blue = Arrays.copyOf(blue, capacity);
+        directionX = Arrays.copyOf(directionX, capacity);
+        directionZ = Arrays.copyOf(directionZ, capacity);
+        extent = Arrays.copyOf(extent, capacity);
+    }
+
+    // Nothing moves, so a tick only ages the particles. A removed row gets the last one, which is checked next
+    private static void tick() {
+        int row = 0;
+        while (row < count) {
+            if (age[row]++ >= maxAge[row]) {
+                remove(row);
+            } else {
+                row++;
+            }
+        }
+    }
+
+    private static void render(WorldRenderContext context) {
+        if (count == 0) {
+            return;
+        }
+        for (SpriteFrameTable table : frames) {
+            if (table != null) {
+                table.refresh();
+            }
+        }
+        MinecraftClient client = MinecraftClient.getInstance();
+        Vec3d camera = context.camera().getPos();
+        float tickProgress = context.tickCounter().getTickProgress(false);
+        VertexConsumerProvider.Immediate consumers = client.getBufferBuilders().getEntityVertexConsumers();
+
+        // One pass per sheet
+        VertexConsumer buffer = consumers.getBuffer(NoCullParticleSheet.LAYER);
+        for (int row = 0; row < count; row++) {
+            if (NO_CULL[type[row]]) {
+                emit(buffer, context.world(), row, camera, tickProgress);
+            }
+        }
+        consumers.draw(NoCullParticleSheet.LAYER);
+        buffer = consumers.getBuffer(RING_LAYER);
+        for (int row = 0; row < count; row++) {
+            if (!NO_CULL[type[row]]) {
+                emit(buffer, context.world(), row, camera, tickProgress);
+            }
+        }
+        consumers.draw(RING_LAYER);
+    }
+
+    // Writes the quads of one particle, everything that changes over its life follows from the age
+    public static void emit(VertexConsumer buffer, ClientWorld world, int row, Vec3d camera, float tickProgress) {
+        int particleType = type[row];
+        float particleAge = age[row] + tickProgress;
+        float lifeProgress = particleAge / maxAge[row];
+        float cx = (float) (x[row] - camera.x);
+        float cy = (float) (y[row] - camera.y);
+        float cz = (float) (z[row] - camera.z);
+        int light = QuadEmitter.getLight(world, x[row], y[row], z[row]);
+
+        switch (particleType) {
+            case WAVE, FOAM -> {
+                // Lies along the shoreline facing the shore, and tips up around the shoreline near a cliff
+                begin(particleType, ((int) (particleAge * 0.4f)) % 20, row, 0.7f - lifeProgress * 0.6f, light);
+                float size = scale[row];
+                float angle = extent[row] > 0 ? lifeProgress * MathHelper.HALF_PI : 0.0f;
+                float dx = directionX[row];
+                float dz = directionZ[row];
+                QuadEmitter.tilted(buffer, cx, cy, cz, -dz * size, dx * size, -dx * size, -dz * size, angle);
+            }
+            case SPLASH_WALL, SPLASH_FOAM_WALL -> {
+                // Four walls around a square, the animation plays once and holds its last frame
+                begin(particleType, Math.min(8, (int) (particleAge * 0.6f)), row, particleType == SPLASH_WALL ? 0.9f : 0.72f, light);
+                float halfSize = scale[row] * 0.5f;
+                float halfHeight = scale[row] * (particleType == SPLASH_WALL ? 1.5f : 1.8f) * extent[row] * 0.5f;
+                QuadEmitter.upright(buffer, cx, cy, cz + halfSize, halfSize, 0.0f, halfHeight); // North
+                QuadEmitter.upright(buffer, cx, cy, cz - halfSize, -halfSize, 0.0f, halfHeight); // South
+                QuadEmitter.upright(buffer, cx + halfSize, cy, cz, 0.0f, halfSize, halfHeight); // East
+                QuadEmitter.upright(buffer, cx - halfSize, cy, cz, 0.0f, -halfSize, halfHeight); // West
+            }
+            case SPLASH_RING -> {
+                // Flat on the water, widening as it fades
+                begin(particleType, ((int) (particleAge * 0.6f)) % 9, row, Math.min(0.9f - lifeProgress * 0.7f, 0.9f), light);
+                float size = scale[row] + 0.02f * extent[row] * particleAge;
+                QuadEmitter.flat(buffer, cx, cy, cz, size * 0.7f);
+            }
+        }
+    }
+
+    private static void begin(int particleType, int frame, int row, float alpha, int light) {
+        Sprite sprite = frames[particleType].get(frame);
+        QuadEmitter.begin(sprite.getMinU(), sprite.getMaxU(), sprite.getMinV(), sprite.getMaxV(),
+                red[row], green[row], blue[row], MathHelper.clamp(alpha, 0.0f, 1.0f), light);
+    }
+}
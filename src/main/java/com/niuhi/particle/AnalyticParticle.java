@@ -0,0 +1,48 @@
+package com.niuhi.particle;
+
+import net.minecraft.client.particle.SpriteBillboardParticle;
+import net.minecraft.client.render.Camera;
+import net.minecraft.client.render.VertexConsumer;
+import net.minecraft.client.world.ClientWorld;
+import net.minecraft.util.math.MathHelper;
+
+// Base of particles that stay where they spawn and whose look only depends on their age
+// Ticking just ages them and checks for expiry. Sprite frame, alpha and scale are worked out when the particle is
+// rendered, from the age plus the partial tick, so a particle nobody renders costs next to nothing
+public abstract class AnalyticParticle extends SpriteBillboardParticle {
+    private final SpriteFrameTable frames;
+
+    protected AnalyticParticle(ClientWorld world, double x, double y, double z, SpriteFrameTable frames) {
+        super(world, x, y, z);
+        this.frames = frames.refresh();
+        this.setSprite(frames.get(0));
+    }
+
+    // Frame of the sprite frame table at the given age in ticks
+    protected abstract int getFrame(float age);
+
+    protected abstract float getAlpha(float age);
+
+    protected float getScale(float age) {
+        return this.scale;
+    }
+
+    // Draws the particle, sprite, alpha and scale are already set for this frame
+    protected abstract void renderQuads(VertexConsumer buffer, Camera camera, float partialTicks);
+
+    @Override
+    public final void tick() {
+        if (this.age++ >= this.maxAge) {
+            this.markDead();
+        }
+    }
+
+    @Override
+    public final void render(VertexConsumer buffer, Camera camera, float partialTicks) {
+        float age = this.age + partialTicks;
+        this.setSprite(frames.get(getFrame(age)));
+        this.alpha = MathHelper.clamp(getAlpha(age), 0.0f, 1.0f); // The partial tick can take a fade past zero
+        this.scale = getScale(age);
+        renderQuads(buffer, camera, partialTicks);
+    }
+}
@@ -0,0 +1,123 @@
+package com.niuhi.particle;
+
+import it.unimi.dsi.fastutil.objects.Reference2IntMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientTickEvents;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientWorldEvents;
+import net.minecraft.client.world.ClientWorld;
+import net.minecraft.particle.ParticleEffect;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Staggers particle spawns over future ticks without an object per spawn
+// A timing wheel with one bucket per tick, every bucket stores its spawns as parallel primitive arrays,
+// so scheduling and draining cost O(1) per spawn. Delays longer than the wheel wait extra rounds in their bucket
+public class DeferredSpawnWheel {
+    private static final int WHEEL_SIZE = 64; // Buckets, must be a power of two
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final int WHEEL_BITS = 6;
+
+    private static final Bucket[] buckets = new Bucket[WHEEL_SIZE];
+    private static final List<ParticleEffect> types = new ArrayList<>(); // Type ordinal to particle effect
+    private static final Reference2IntMap<ParticleEffect> ordinals = new Reference2IntOpenHashMap<>();
+    private static int currentTick = 0;
+
+    static {
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            buckets[i] = new Bucket();
+        }
+        ordinals.defaultReturnValue(-1);
+    }
+
+    private static class Bucket {
+        int size = 0;
+        int[] type = new int[16];
+        int[] rounds = new int[16]; // Full wheel turns left before the spawn is due
+        double[] x = new double[16];
+        double[] y = new double[16];
+        double[] z = new double[16];
+        double[] velocityX = new double[16];
+        double[] velocityY = new double[16];
+        double[] velocityZ = new double[16];
+
+        void add(int typeOrdinal, int turns, double px, double py, double pz, double vx, double vy, double vz) {
+            if (size == type.length) {
+                int capacity = size * 2;
+                type = Arrays.copyOf(type, capacity);
+                rounds = Arrays.copyOf(rounds, capacity);
+                x = Arrays.copyOf(x, capacity);
+                y = Arrays.copyOf(y, capacity);
+                z = Arrays.copyOf(z, capacity);
+                velocityX = Arrays.copyOf(velocityX, capacity);
+                velocityY = Arrays.copyOf(velocityY, capacity);
+                velocityZ = Arrays.copyOf(velocityZ, capacity);
+            }
+            type[size] = typeOrdinal;
+            rounds[size] = turns;
+            x[size] = px;
+            y[size] = py;
+            z[size] = pz;
+            velocityX[size] = vx;
+            velocityY[size] = vy;
+            velocityZ[size] = vz;
+            size++;
+        }
+
+        // Spawns everything that is due and keeps the rest, compacted to the front
+        void drain(ClientWorld world) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (rounds[i] > 0) {
+                    type[kept] = type[i];
+                    rounds[kept] = rounds[i] - 1;
+                    x[kept] = x[i];
+                    y[kept] = y[i];
+                    z[kept] = z[i];
+                    velocityX[kept] = velocityX[i];
+                    velocityY[kept] = velocityY[i];
+                    velocityZ[kept] = velocityZ[i];
+                    kept++;
+                } else if (SpawnGate.test(world, x[i], y[i], z[i])) {
+                    // Tested when due rather than when scheduled, the camera may have turned since
+                    world.addParticleClient(types.get(type[i]), x[i], y[i], z[i], velocityX[i], velocityY[i], velocityZ[i]);
+                }
+            }
+            size = kept;
+        }
+    }
+
+    public static void register() {
+        ClientTickEvents.END_CLIENT_TICK.register(client -> {
+            if (client.world != null) {
+                currentTick++;
+                buckets[currentTick & WHEEL_MASK].drain(client.world);
+            }
+        });
+        ClientWorldEvents.AFTER_CLIENT_WORLD_CHANGE.register((client, world) -> {
+            for (Bucket bucket : buckets) {
+                bucket.size = 0;
+            }
+        });
+    }
+
+    // Spawns the particle delayTicks from now, delays below 1 spawn on the next tick
+    // Types are told apart by identity, which suits the mod's singleton particle types
+    public static void schedule(ParticleEffect type, double x, double y, double z,
+                                double velocityX, double velocityY, double velocityZ, int delayTicks) {
+        int delay = Math.max(1, delayTicks);
+        buckets[(currentTick + delay) & WHEEL_MASK].add(getOrdinal(type), (delay - 1) >> WHEEL_BITS,
+                x, y, z, velocityX, velocityY, velocityZ);
+    }
+
+    private static int getOrdinal(ParticleEffect type) {
+        int ordinal = ordinals.getInt(type);
+        if (ordinal < 0) {
+            ordinal = types.size();
+            types.add(type);
+            ordinals.put(type, ordinal);
+        }
+        return ordinal;
+    }
+}
@@ -4,6 +4,7 @@ import com.niuhi.particle.player.*;
 import com.niuhi.particle.water.*;
 import com.niuhi.particle.weather.wind.WindParticle;
 import com.niuhi.particle.weather.wind.WindParticleTypes;
+import com.niuhi.player.FootprintDecals;
 import net.fabricmc.fabric.api.client.particle.v1.ParticleFactoryRegistry;
 
 public class ParticleRegistry {
@@ -18,20 +19,33 @@ public class ParticleRegistry {
         ParticleFactoryRegistry.getInstance().register(WaterParticleTypes.BIGSPLASH, BigSplashParticle.Factory::new);
         ParticleFactoryRegistry.getInstance().register(WaterParticleTypes.RIPPLE, RippleParticle.Factory::new);
         ParticleFactoryRegistry.getInstance().register(WaterParticleTypes.SPLASH, SplashParticle.Factory::new);
-        ParticleFactoryRegistry.getInstance().register(WaterParticleTypes.WAVE, WaveParticle.Factory::new);
-        ParticleFactoryRegistry.getInstance().register(WaterParticleTypes.FOAM, FoamParticle.Factory::new);
-        ParticleFactoryRegistry.getInstance().register(WaterParticleTypes.WATERSPLASH, WaterSplashParticle.Factory::new);
-        ParticleFactoryRegistry.getInstance().register(WaterParticleTypes.WATERSPLASHFOAM, WaterSplashFoamParticle.Factory::new);
-        ParticleFactoryRegistry.getInstance().register(WaterParticleTypes.WATERSPLASHRING, WaterSplashRingParticle.Factory::new);
+        // Waves, foam and entity splashes are rows of the ambient particle store
+        ParticleFactoryRegistry.getInstance().register(WaterParticleTypes.WAVE,
+                spriteProvider -> new AmbientParticleStore.Factory(AmbientParticleStore.WAVE, spriteProvider));
+        ParticleFactoryRegistry.getInstance().register(WaterParticleTypes.FOAM,
+                spriteProvider -> new AmbientParticleStore.Factory(AmbientParticleStore.FOAM, spriteProvider));
+        ParticleFactoryRegistry.getInstance().register(WaterParticleTypes.WATERSPLASH,
+                spriteProvider -> new AmbientParticleStore.Factory(AmbientParticleStore.SPLASH_WALL, spriteProvider));
+        ParticleFactoryRegistry.getInstance().register(WaterParticleTypes.WATERSPLASHFOAM,
+                spriteProvider -> new AmbientParticleStore.Factory(AmbientParticleStore.SPLASH_FOAM_WALL, spriteProvider));
+        ParticleFactoryRegistry.getInstance().register(WaterParticleTypes.WATERSPLASHRING,
+                spriteProvider -> new AmbientParticleStore.Factory(AmbientParticleStore.SPLASH_RING, spriteProvider));
 
         // Player Particles
         PlayerParticleTypes.registerParticles();
-        ParticleFactoryRegistry.getInstance().register(PlayerParticleTypes.FOOTPRINT, FootprintParticle.Factory::new);
-        ParticleFactoryRegistry.getInstance().register(PlayerParticleTypes.FOOTPRINT_WET, FootprintWetParticle.Factory::new);
-        ParticleFactoryRegistry.getInstance().register(PlayerParticleTypes.FOOTPRINT_SNOW, FootprintSnowParticle.Factory::new);
-        ParticleFactoryRegistry.getInstance().register(PlayerParticleTypes.FOOTPRINT_MUDDY, FootprintMuddyParticle.Factory::new);
-        ParticleFactoryRegistry.getInstance().register(PlayerParticleTypes.FOOTPRINT_SAND, FootprintSandParticle.Factory::new);
-        ParticleFactoryRegistry.getInstance().register(PlayerParticleTypes.FOOTPRINT_REDSAND, FootprintRedSandParticle.Factory::new);
+        // Footprints are decals, these types let /particle place one
+        ParticleFactoryRegistry.getInstance().register(PlayerParticleTypes.FOOTPRINT,
+                spriteProvider -> new FootprintDecals.Factory(FootprintDecals.PLAIN));
+        ParticleFactoryRegistry.getInstance().register(PlayerParticleTypes.FOOTPRINT_WET,
+                spriteProvider -> new FootprintDecals.Factory(FootprintDecals.WET));
+        ParticleFactoryRegistry.getInstance().register(PlayerParticleTypes.FOOTPRINT_SNOW,
+                spriteProvider -> new FootprintDecals.Factory(FootprintDecals.SNOW));
+        ParticleFactoryRegistry.getInstance().register(PlayerParticleTypes.FOOTPRINT_MUDDY,
+                spriteProvider -> new FootprintDecals.Factory(FootprintDecals.MUDDY));
+        ParticleFactoryRegistry.getInstance().register(PlayerParticleTypes.FOOTPRINT_SAND,
+                spriteProvider -> new FootprintDecals.Factory(FootprintDecals.SAND));
+        ParticleFactoryRegistry.getInstance().register(PlayerParticleTypes.FOOTPRINT_REDSAND,
+                spriteProvider -> new FootprintDecals.Factory(FootprintDecals.RED_SAND));
         ParticleFactoryRegistry.getInstance().register(PlayerParticleTypes.DUST_CLOUD, DustCloudParticle.Factory::new);
     }
 }
\ No newline at end of file
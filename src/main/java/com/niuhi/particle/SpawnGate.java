@@ -0,0 +1,98 @@
+package com.niuhi.particle;
+
+import com.niuhi.world.ColumnCache;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientWorldEvents;
+import net.fabricmc.fabric.api.client.rendering.v1.WorldRenderEvents;
+import net.minecraft.client.render.Frustum;
+import net.minecraft.client.world.ClientWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Vec3d;
+import net.minecraft.world.LightType;
+
+import java.util.Arrays;
+
+// Decides whether a particle is worth spawning before it gets built
+// A spawn is dropped when it is farther from the camera than the max distance, outside the last frame's frustum, or
+// buried under terrain while the camera is out under the sky. Every emitter asks here first and the reasons are counted
+public class SpawnGate {
+    public enum Reason {
+        DISTANCE, FRUSTUM, COVERED
+    }
+
+    private static final double FRUSTUM_MARGIN = 1.0; // Blocks around the spawn, for particle size and camera movement until the next frame
+    private static final int COVER_MARGIN = 2; // Blocks a spawn may sit below its column's top before it counts as covered
+
+    private static int maxDistance = 32; // Blocks from the camera, vanilla drops unforced spawns farther away anyway
+    private static Frustum frustum = null;
+    private static Vec3d cameraPos = null;
+    private static boolean cameraUnderSky = false;
+    private static final BlockPos.Mutable lightPos = new BlockPos.Mutable();
+    private static long passed = 0;
+    private static final long[] culled = new long[Reason.values().length];
+
+    public static void register() {
+        // The frustum is ready after setup, ticks between frames test against the latest one
+        WorldRenderEvents.AFTER_SETUP.register(context -> {
+            frustum = context.frustum();
+            cameraPos = context.camera().getPos();
+            cameraUnderSky = context.world().getLightLevel(LightType.SKY, lightPos.set(cameraPos.x, cameraPos.y, cameraPos.z)) > 0;
+        });
+        ClientWorldEvents.AFTER_CLIENT_WORLD_CHANGE.register((client, world) -> {
+            frustum = null;
+            cameraPos = null;
+        });
+    }
+
+    public static boolean test(ClientWorld world, double x, double y, double z) {
+        if (cameraPos == null) {
+            passed++;
+            return true; // No frame drawn yet
+        }
+        double dx = x - cameraPos.x;
+        double dy = y - cameraPos.y;
+        double dz = z - cameraPos.z;
+        if (dx * dx + dy * dy + dz * dz > (double) maxDistance * maxDistance) {
+            return cull(Reason.DISTANCE);
+        }
+        if (frustum != null && !frustum.isVisible(x - FRUSTUM_MARGIN, y - FRUSTUM_MARGIN, z - FRUSTUM_MARGIN,
+                x + FRUSTUM_MARGIN, y + FRUSTUM_MARGIN, z + FRUSTUM_MARGIN)) {
+            return cull(Reason.FRUSTUM);
+        }
+        // Below the column's top with no sky light means a cave, which can't be seen from outside
+        int blockX = (int) Math.floor(x);
+        int blockY = (int) Math.floor(y);
+        int blockZ = (int) Math.floor(z);
+        if (cameraUnderSky && blockY + COVER_MARGIN < ColumnCache.getTopY(world, blockX, blockZ) &&
+                world.getLightLevel(LightType.SKY, lightPos.set(blockX, blockY, blockZ)) == 0) {
+            return cull(Reason.COVERED);
+        }
+        passed++;
+        return true;
+    }
+
+    public static int getMaxDistance() {
+        return maxDistance;
+    }
+
+    public static void setMaxDistance(int distance) {
+        maxDistance = distance;
+    }
+
+    public static long getPassed() {
+        return passed;
+    }
+
+    public static long getCulled(Reason reason) {
+        return culled[reason.ordinal()];
+    }
+
+    public static void resetCounters() {
+        passed = 0;
+        Arrays.fill(culled, 0);
+    }
+
+    private static boolean cull(Reason reason) {
+        culled[reason.ordinal()]++;
+        return false;
+    }
+}
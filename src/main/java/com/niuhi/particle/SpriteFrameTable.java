@@ -0,0 +1,33 @@
+package com.niuhi.particle;
+
+import net.minecraft.client.particle.SpriteProvider;
+import net.minecraft.client.texture.Sprite;
+
+// The animation frames of one particle type, looked up once instead of asking the sprite provider every tick
+// Frame i is spriteProvider.getSprite(i, maxAge). A resource reload gives the provider new sprites, so the table
+// compares its first frame with the provider's whenever a particle is created and rebuilds itself if they differ
+public class SpriteFrameTable {
+    private final SpriteProvider spriteProvider;
+    private final Sprite[] frames;
+    private final int maxAge;
+
+    public SpriteFrameTable(SpriteProvider spriteProvider, int frameCount, int maxAge) {
+        this.spriteProvider = spriteProvider;
+        this.frames = new Sprite[frameCount];
+        this.maxAge = maxAge;
+    }
+
+    // Brings the table up to date, called once per particle
+    public SpriteFrameTable refresh() {
+        if (frames[0] != spriteProvider.getSprite(0, maxAge)) {
+            for (int i = 0; i < frames.length; i++) {
+                frames[i] = spriteProvider.getSprite(i, maxAge);
+            }
+        }
+        return this;
+    }
+
+    public Sprite get(int frame) {
+        return frames[frame];
+    }
+}
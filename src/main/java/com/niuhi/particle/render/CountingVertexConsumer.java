@@ -0,0 +1,47 @@
+package com.niuhi.particle.render;
+
+import net.minecraft.client.render.VertexConsumer;
+
+// Vertex consumer that throws the vertices away and only counts them, for checking how much a particle emits
+public class CountingVertexConsumer implements VertexConsumer {
+    private int vertices = 0;
+
+    public int getVertices() {
+        return vertices;
+    }
+
+    public void reset() {
+        vertices = 0;
+    }
+
+    @Override
+    public VertexConsumer vertex(float x, float y, float z) {
+        vertices++;
+        return this;
+    }
+
+    @Override
+    public VertexConsumer color(int red, int green, int blue, int alpha) {
+        return this;
+    }
+
+    @Override
+    public VertexConsumer texture(float u, float v) {
+        return this;
+    }
+
+    @Override
+    public VertexConsumer overlay(int u, int v) {
+        return this;
+    }
+
+    @Override
+    public VertexConsumer light(int u, int v) {
+        return this;
+    }
+
+    @Override
+    public VertexConsumer normal(float x, float y, float z) {
+        return this;
+    }
+}
@@ -0,0 +1,59 @@
+package com.niuhi.particle.render;
+
+import net.fabricmc.fabric.api.client.rendering.v1.WorldRenderEvents;
+import net.minecraft.client.render.WorldRenderer;
+import net.minecraft.client.world.ClientWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.MathHelper;
+
+// Light of the blocks particles are rendered in, remembered for the rest of the frame
+// A direct mapped table keyed by packed block position: a slot holds one block, a colliding block replaces it.
+// Slots are stamped with the frame they were filled in, so starting a new frame clears the table in O(1)
+public class LightCache {
+    private static final int BITS = 12;
+    private static final int SIZE = 1 << BITS; // 4096 slots
+
+    private static final long[] keys = new long[SIZE];
+    private static final int[] lights = new int[SIZE];
+    private static final int[] frames = new int[SIZE]; // Frame a slot was filled in, 0 is never
+    private static final BlockPos.Mutable lookupPos = new BlockPos.Mutable();
+    private static int frame = 1;
+    private static long hits = 0;
+    private static long misses = 0;
+
+    public static void register() {
+        WorldRenderEvents.START.register(context -> frame++);
+    }
+
+    // WorldRenderer.getLightmapCoordinates of the block holding the point
+    public static int get(ClientWorld world, double x, double y, double z) {
+        int blockX = MathHelper.floor(x);
+        int blockY = MathHelper.floor(y);
+        int blockZ = MathHelper.floor(z);
+        long key = BlockPos.asLong(blockX, blockY, blockZ);
+        int slot = (int) (key * 0x9E3779B97F4A7C15L >>> (64 - BITS)); // Fibonacci hashing mixes x, y and z into the top bits
+        if (frames[slot] == frame && keys[slot] == key) {
+            hits++;
+            return lights[slot];
+        }
+        misses++;
+        int light = WorldRenderer.getLightmapCoordinates(world, lookupPos.set(blockX, blockY, blockZ));
+        keys[slot] = key;
+        lights[slot] = light;
+        frames[slot] = frame;
+        return light;
+    }
+
+    public static long getHits() {
+        return hits;
+    }
+
+    public static long getMisses() {
+        return misses;
+    }
+
+    public static void resetCounters() {
+        hits = 0;
+        misses = 0;
+    }
+}
@@ -0,0 +1,34 @@
+package com.niuhi.particle.render;
+
+import com.mojang.blaze3d.pipeline.BlendFunction;
+import com.mojang.blaze3d.pipeline.RenderPipeline;
+import com.niuhi.Windswept;
+import net.minecraft.client.gl.RenderPipelines;
+import net.minecraft.client.particle.ParticleTextureSheet;
+import net.minecraft.client.render.RenderLayer;
+import net.minecraft.client.render.RenderPhase;
+import net.minecraft.client.texture.SpriteAtlasTexture;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.TriState;
+
+// Translucent particle sheet that draws both faces of every quad
+// Vanilla's translucent sheet culls back faces, so particles seen from both sides had to send every quad twice, the
+// second time wound the other way. Particles on this sheet send each quad once. ParticleManagerMixin makes the
+// particle manager draw it, right after vanilla's translucent sheet
+public class NoCullParticleSheet {
+    private static final RenderPipeline PIPELINE = RenderPipelines.register(RenderPipeline.builder(RenderPipelines.PARTICLE_SNIPPET)
+            .withLocation(Identifier.of(Windswept.MOD_ID, "pipeline/translucent_particle_no_cull"))
+            .withBlend(BlendFunction.TRANSLUCENT)
+            .withCull(false)
+            .build());
+
+    // Same as RenderLayer.getTranslucentParticle for the particle atlas, on the pipeline above
+    public static final RenderLayer LAYER = RenderLayer.of("windswept_translucent_particle_no_cull", 1536, false, false, PIPELINE,
+            RenderLayer.MultiPhaseParameters.builder()
+                    .texture(new RenderPhase.Texture(SpriteAtlasTexture.PARTICLE_ATLAS_TEXTURE, TriState.FALSE, false))
+                    .lightmap(RenderPhase.ENABLE_LIGHTMAP)
+                    .target(RenderPhase.PARTICLES_TARGET)
+                    .build(false));
+
+    public static final ParticleTextureSheet SHEET = new ParticleTextureSheet("WINDSWEPT_TRANSLUCENT_NO_CULL", LAYER);
+}
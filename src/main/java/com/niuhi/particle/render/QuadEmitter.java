@@ -0,0 +1,88 @@
+package com.niuhi.particle.render;
+
+import net.minecraft.client.render.Camera;
+import net.minecraft.client.render.VertexConsumer;
+import net.minecraft.client.world.ClientWorld;
+import net.minecraft.util.math.MathHelper;
+import org.joml.Vector3f;
+
+// Writes the mod's particle quads straight into the vertex consumer, without allocating anything per frame
+// A quad is a center and two half edge vectors a and b, its corners are -a-b, -a+b, +a+b, +a-b with b pointing to the
+// top of the sprite. Sprite, color and light are set once per particle with begin, then any number of quads follow.
+// Particles are only rendered on the render thread, so the shared scratch state below is confined to it
+public class QuadEmitter {
+    private static final Vector3f right = new Vector3f();
+    private static final Vector3f up = new Vector3f();
+
+    private static float minU;
+    private static float maxU;
+    private static float minV;
+    private static float maxV;
+    private static float red;
+    private static float green;
+    private static float blue;
+    private static float alpha;
+    private static int light;
+
+    public static void begin(float spriteMinU, float spriteMaxU, float spriteMinV, float spriteMaxV,
+                             float r, float g, float b, float a, int packedLight) {
+        minU = spriteMinU;
+        maxU = spriteMaxU;
+        minV = spriteMinV;
+        maxV = spriteMaxV;
+        red = r;
+        green = g;
+        blue = b;
+        alpha = a;
+        light = packedLight;
+    }
+
+    // Same as WorldRenderer.getLightmapCoordinates at the block holding the point, shared by the frame's particles
+    public static int getLight(ClientWorld world, double x, double y, double z) {
+        return LightCache.get(world, x, y, z);
+    }
+
+    // Axis aligned quad lying on the XZ plane, the sprite's top pointing south
+    public static void flat(VertexConsumer buffer, float x, float y, float z, float halfSize) {
+        quad(buffer, x, y, z, halfSize, 0.0f, 0.0f, 0.0f, 0.0f, halfSize);
+    }
+
+    // Vertical quad standing on its horizontal right edge vector, the sprite's top pointing up
+    public static void upright(VertexConsumer buffer, float x, float y, float z, float rightX, float rightZ,
+                               float halfHeight) {
+        quad(buffer, x, y, z, rightX, 0.0f, rightZ, 0.0f, halfHeight, 0.0f);
+    }
+
+    // Flat quad tipped up around its along edge by angle radians, the forward edge rising
+    public static void tilted(VertexConsumer buffer, float x, float y, float z, float alongX, float alongZ,
+                              float forwardX, float forwardZ, float angle) {
+        float cos = MathHelper.cos(angle);
+        float lift = MathHelper.sin(angle) * MathHelper.sqrt(forwardX * forwardX + forwardZ * forwardZ);
+        quad(buffer, x, y, z, alongX, 0.0f, alongZ, forwardX * cos, lift, forwardZ * cos);
+    }
+
+    // Camera facing quad, wound like vanilla's billboards
+    public static void billboard(VertexConsumer buffer, Camera camera, float x, float y, float z, float halfSize) {
+        camera.getRotation().transform(right.set(halfSize, 0.0f, 0.0f));
+        camera.getRotation().transform(up.set(0.0f, halfSize, 0.0f));
+        back(buffer, x, y, z, right.x(), right.y(), right.z(), up.x(), up.y(), up.z());
+    }
+
+    // Any quad. Both faces of it show on the no-cull sheet, only this one on vanilla's sheets
+    public static void quad(VertexConsumer buffer, float x, float y, float z, float ax, float ay, float az,
+                            float bx, float by, float bz) {
+        buffer.vertex(x - ax - bx, y - ay - by, z - az - bz).texture(minU, maxV).color(red, green, blue, alpha).light(light);
+        buffer.vertex(x - ax + bx, y - ay + by, z - az + bz).texture(minU, minV).color(red, green, blue, alpha).light(light);
+        buffer.vertex(x + ax + bx, y + ay + by, z + az + bz).texture(maxU, minV).color(red, green, blue, alpha).light(light);
+        buffer.vertex(x + ax - bx, y + ay - by, z + az - bz).texture(maxU, maxV).color(red, green, blue, alpha).light(light);
+    }
+
+    // Same quad wound the other way
+    private static void back(VertexConsumer buffer, float x, float y, float z, float ax, float ay, float az,
+                             float bx, float by, float bz) {
+        buffer.vertex(x + ax - bx, y + ay - by, z + az - bz).texture(maxU, maxV).color(red, green, blue, alpha).light(light);
+        buffer.vertex(x + ax + bx, y + ay + by, z + az + bz).texture(maxU, minV).color(red, green, blue, alpha).light(light);
+        buffer.vertex(x - ax + bx, y - ay + by, z - az + bz).texture(minU, minV).color(red, green, blue, alpha).light(light);
+        buffer.vertex(x - ax - bx, y - ay - by, z - az - bz).texture(minU, maxV).color(red, green, blue, alpha).light(light);
+    }
+}
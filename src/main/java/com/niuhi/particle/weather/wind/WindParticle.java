@@ -1,17 +1,16 @@
 package com.niuhi.particle.weather.wind;
 
 import com.niuhi.Windswept;
+import com.niuhi.particle.render.NoCullParticleSheet;
+import com.niuhi.particle.render.QuadEmitter;
 import com.niuhi.weather.wind.WindSystem;
 import net.minecraft.client.particle.*;
 import net.minecraft.client.render.Camera;
 import net.minecraft.client.render.VertexConsumer;
-import net.minecraft.client.render.WorldRenderer;
 import net.minecraft.client.world.ClientWorld;
 import net.minecraft.particle.SimpleParticleType;
 import net.minecraft.util.math.MathHelper;
 import net.minecraft.util.math.Vec3d;
-import net.minecraft.util.math.BlockPos;
-import org.joml.Vector3f;
 
 public class WindParticle extends SpriteBillboardParticle {
     private final SpriteProvider spriteProvider;
@@ -62,10 +61,6 @@ public class WindParticle extends SpriteBillboardParticle {
         float y = (float) (this.y - camPos.y);
         float z = (float) (this.z - camPos.z);
 
-        // Get combined light level using WorldRenderer
-        BlockPos pos = new BlockPos((int) Math.floor(this.x), (int) Math.floor(this.y), (int) Math.floor(this.z));
-        int light = WorldRenderer.getLightmapCoordinates(world, pos);
-
         Vec3d windDirection = windSystem.getWindDirection();
         float yaw = (float) MathHelper.atan2(windDirection.z, windDirection.x);
 
@@ -74,51 +69,15 @@ public class WindParticle extends SpriteBillboardParticle {
         float cosYaw = MathHelper.cos(yaw);
         float sinYaw = MathHelper.sin(yaw);
 
-        Vector3f right = new Vector3f(cosYaw, 0, -sinYaw).mul(size);
-        Vector3f up = new Vector3f(0, size, 0);
-
-        Vector3f[] vertices = new Vector3f[]{
-                new Vector3f(x - right.x() - up.x(), y - right.y() - up.y(), z - right.z() - up.z()),
-                new Vector3f(x - right.x() + up.x(), y - right.y() + up.y(), z - right.z() + up.z()),
-                new Vector3f(x + right.x() + up.x(), y + right.y() + up.y(), z + right.z() + up.z()),
-                new Vector3f(x + right.x() - up.x(), y + right.y() - up.y(), z + right.z() - up.z())
-        };
-
-        float minU = this.getMinU();
-        float maxU = this.getMaxU();
-        float minV = this.getMinV();
-        float maxV = this.getMaxV();
-
-        buffer.vertex(vertices[0].x(), vertices[0].y(), vertices[0].z())
-                .texture(minU, maxV).color(1.0f, 1.0f, 1.0f, this.alpha)
-                .light(light);
-        buffer.vertex(vertices[1].x(), vertices[1].y(), vertices[1].z())
-                .texture(minU, minV).color(1.0f, 1.0f, 1.0f, this.alpha)
-                .light(light);
-        buffer.vertex(vertices[2].x(), vertices[2].y(), vertices[2].z())
-                .texture(maxU, minV).color(1.0f, 1.0f, 1.0f, this.alpha)
-                .light(light);
-        buffer.vertex(vertices[3].x(), vertices[3].y(), vertices[3].z())
-                .texture(maxU, maxV).color(1.0f, 1.0f, 1.0f, this.alpha)
-                .light(light);
-
-        buffer.vertex(vertices[3].x(), vertices[3].y(), vertices[3].z())
-                .texture(maxU, maxV).color(1.0f, 1.0f, 1.0f, this.alpha)
-                .light(light);
-        buffer.vertex(vertices[2].x(), vertices[2].y(), vertices[2].z())
-                .texture(maxU, minV).color(1.0f, 1.0f, 1.0f, this.alpha)
-                .light(light);
-        buffer.vertex(vertices[1].x(), vertices[1].y(), vertices[1].z())
-                .texture(minU, minV).color(1.0f, 1.0f, 1.0f, this.alpha)
-                .light(light);
-        buffer.vertex(vertices[0].x(), vertices[0].y(), vertices[0].z())
-                .texture(minU, maxV).color(1.0f, 1.0f, 1.0f, this.alpha)
-                .light(light);
+        // Upright quad facing along the wind
+        QuadEmitter.begin(this.getMinU(), this.getMaxU(), this.getMinV(), this.getMaxV(),
+                1.0f, 1.0f, 1.0f, this.alpha, QuadEmitter.getLight(world, this.x, this.y, this.z));
+        QuadEmitter.upright(buffer, x, y, z, cosYaw * size, -sinYaw * size, size);
     }
 
     @Override
     public ParticleTextureSheet getType() {
-        return ParticleTextureSheet.PARTICLE_SHEET_TRANSLUCENT;
+        return NoCullParticleSheet.SHEET; // Seen from both sides
     }
 
     public static class Factory implements ParticleFactory<SimpleParticleType> {
@@ -0,0 +1,157 @@
+package com.niuhi.player;
+
+import com.niuhi.Windswept;
+import com.niuhi.particle.render.QuadEmitter;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientTickEvents;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientWorldEvents;
+import net.fabricmc.fabric.api.client.rendering.v1.WorldRenderContext;
+import net.fabricmc.fabric.api.client.rendering.v1.WorldRenderEvents;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.particle.Particle;
+import net.minecraft.client.particle.ParticleFactory;
+import net.minecraft.client.render.RenderLayer;
+import net.minecraft.client.render.VertexConsumer;
+import net.minecraft.client.render.VertexConsumerProvider;
+import net.minecraft.client.texture.Sprite;
+import net.minecraft.client.texture.SpriteAtlasTexture;
+import net.minecraft.client.world.ClientWorld;
+import net.minecraft.particle.SimpleParticleType;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.util.math.Vec3d;
+
+import java.util.function.Function;
+
+// Footprints as decals in a fixed size ring buffer instead of one particle each
+// Every footprint is a row of parallel primitive arrays (position, yaw, type, birth tick, light), a full buffer
+// overwrites its oldest footprint. Nothing is ticked per footprint: alpha follows from the age, and all of them are
+// drawn in one batch after the translucent pass
+public class FootprintDecals {
+    // Types: the surface table's types, then wet
+    public static final int PLAIN = 0;
+    public static final int MUDDY = 1;
+    public static final int RED_SAND = 2;
+    public static final int SAND = 3;
+    public static final int SNOW = 4;
+    public static final int WET = 5;
+    private static final int CAPACITY = 2048; // Footprints alive at once, must be a power of two
+    private static final int MASK = CAPACITY - 1;
+    private static final int LIFETIME = 200; // Ticks a footprint stays visible
+    private static final float START_ALPHA = 0.8f;
+    private static final float HALF_SIZE = 0.15f; // Footprints are 0.3 blocks across
+    private static final float HEIGHT_OFFSET = 0.01f; // Lift above the surface against z-fighting
+    private static final RenderLayer LAYER = RenderLayer.getTranslucentParticle(SpriteAtlasTexture.PARTICLE_ATLAS_TEXTURE);
+
+    // Particle atlas sprite of every type: the surface table's types, then wet
+    private static final Identifier[] TEXTURES = {
+            Identifier.of(Windswept.MOD_ID, "footprint"),
+            Identifier.of(Windswept.MOD_ID, "footprint_muddy"),
+            Identifier.of(Windswept.MOD_ID, "footprint_redsand"),
+            Identifier.of(Windswept.MOD_ID, "footprint_sand"),
+            Identifier.of(Windswept.MOD_ID, "footprint_snow"),
+            Identifier.of(Windswept.MOD_ID, "footprint_wet")
+    };
+
+    private static final double[] x = new double[CAPACITY];
+    private static final double[] y = new double[CAPACITY];
+    private static final double[] z = new double[CAPACITY];
+    private static final float[] yaw = new float[CAPACITY];
+    private static final byte[] type = new byte[CAPACITY];
+    private static final int[] birthTick = new int[CAPACITY];
+    private static final int[] light = new int[CAPACITY];
+    private static final Sprite[] sprites = new Sprite[TEXTURES.length];
+    private static int head = 0; // Row the next footprint is written to
+    private static int count = 0; // Live rows, the oldest is count rows behind head
+    private static int tick = 0;
+
+    public static void register() {
+        ClientTickEvents.END_CLIENT_TICK.register(client -> {
+            if (client.world != null && !client.isPaused()) {
+                tick++;
+                expire();
+            }
+        });
+        ClientWorldEvents.AFTER_CLIENT_WORLD_CHANGE.register((client, world) -> count = 0);
+        WorldRenderEvents.AFTER_TRANSLUCENT.register(FootprintDecals::render);
+    }
+
+    // Factory of a footprint particle type that places a decal instead, the yaw in degrees is passed as velocity X
+    public static class Factory implements ParticleFactory<SimpleParticleType> {
+        private final int footprintType;
+
+        public Factory(int footprintType) {
+            this.footprintType = footprintType;
+        }
+
+        @Override
+        public Particle createParticle(SimpleParticleType parameters, ClientWorld world,
+                                       double x, double y, double z,
+                                       double velocityX, double velocityY, double velocityZ) {
+            add(world, footprintType, x, y, z, (float) velocityX);
+            return null;
+        }
+    }
+
+    public static void add(ClientWorld world, int footprintType, double px, double py, double pz, float entityYaw) {
+        int row = head;
+        head = (head + 1) & MASK;
+        count = Math.min(count + 1, CAPACITY); // When full the oldest row is the one just overwritten
+        x[row] = px;
+        y[row] = py;
+        z[row] = pz;
+        yaw[row] = entityYaw;
+        type[row] = (byte) footprintType;
+        birthTick[row] = tick;
+        // Light is taken once, a footprint doesn't live long enough for it to matter
+        light[row] = QuadEmitter.getLight(world, px, py, pz);
+    }
+
+    // Rows are in birth order, so expired footprints are always the oldest ones
+    private static void expire() {
+        while (count > 0 && tick - birthTick[(head - count) & MASK] >= LIFETIME) {
+            count--;
+        }
+    }
+
+    private static void render(WorldRenderContext context) {
+        if (count == 0) {
+            return;
+        }
+        MinecraftClient client = MinecraftClient.getInstance();
+        Function<Identifier, Sprite> atlas = client.getSpriteAtlas(SpriteAtlasTexture.PARTICLE_ATLAS_TEXTURE);
+        for (int i = 0; i < TEXTURES.length; i++) {
+            sprites[i] = atlas.apply(TEXTURES[i]);
+        }
+
+        Vec3d camera = context.camera().getPos();
+        float tickProgress = context.tickCounter().getTickProgress(false);
+        VertexConsumerProvider.Immediate consumers = client.getBufferBuilders().getEntityVertexConsumers();
+        VertexConsumer buffer = consumers.getBuffer(LAYER);
+        for (int n = count; n > 0; n--) {
+            int row = (head - n) & MASK;
+            float age = tick - birthTick[row] + tickProgress;
+            if (age >= LIFETIME) {
+                continue;
+            }
+            float alpha = START_ALPHA - age / LIFETIME * START_ALPHA;
+
+            // Quad flat on the surface, rotated so the sprite's top points where the entity was facing
+            float radians = yaw[row] * MathHelper.RADIANS_PER_DEGREE;
+            float sin = MathHelper.sin(radians);
+            float cos = MathHelper.cos(radians);
+            float sideX = cos * HALF_SIZE;
+            float sideZ = sin * HALF_SIZE;
+            float forwardX = -sin * HALF_SIZE;
+            float forwardZ = cos * HALF_SIZE;
+            float cx = (float) (x[row] - camera.x);
+            float cy = (float) (y[row] + HEIGHT_OFFSET - camera.y);
+            float cz = (float) (z[row] - camera.z);
+
+            Sprite sprite = sprites[type[row]];
+            QuadEmitter.begin(sprite.getMinU(), sprite.getMaxU(), sprite.getMinV(), sprite.getMaxV(),
+                    1.0f, 1.0f, 1.0f, alpha, light[row]);
+            QuadEmitter.quad(buffer, cx, cy, cz, sideX, 0.0f, sideZ, forwardX, 0.0f, forwardZ);
+        }
+        consumers.draw(LAYER);
+    }
+}
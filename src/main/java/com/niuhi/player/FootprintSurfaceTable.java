@@ -0,0 +1,119 @@
+package com.niuhi.player;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.niuhi.Windswept;
+import net.fabricmc.fabric.api.resource.ResourceManagerHelper;
+import net.fabricmc.fabric.api.resource.SimpleSynchronousResourceReloadListener;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.registry.Registries;
+import net.minecraft.resource.Resource;
+import net.minecraft.resource.ResourceManager;
+import net.minecraft.resource.ResourceType;
+import net.minecraft.state.property.Properties;
+import net.minecraft.util.Identifier;
+
+import java.io.Reader;
+import java.util.LinkedHashSet;
+import java.util.Optional;
+import java.util.Set;
+
+// Footprint type and height offset of every block state, indexed by raw state id
+// Built on resource reload from tag style block lists in assets/windswept/tags/block/footprints/, so resource packs
+// can add blocks ("replace": true drops the lists of lower packs). Looking up a footprint is then two array reads
+public class FootprintSurfaceTable implements SimpleSynchronousResourceReloadListener {
+    private static final Identifier ID = Identifier.of(Windswept.MOD_ID, "footprint_surfaces");
+    private static final String PATH = "tags/block/footprints/";
+    private static final float LAYER_HEIGHT = 0.125f; // Each snow layer is 1/8 block tall
+    private static final float RAISED_HEIGHT = 0.125f; // Mud is 0.9 blocks tall, add offset to place on surface
+
+    // Footprint lists from lowest to highest priority, a block in several lists keeps the last one
+    // List n is footprint type n + 1, type 0 is any block in no list
+    private static final String[] TYPE_LISTS = {"muddy", "red_sand", "sand", "snow"};
+
+    private static byte[] types = new byte[0];
+    private static float[] offsets = new float[0];
+
+    public static void register() {
+        ResourceManagerHelper.get(ResourceType.CLIENT_RESOURCES).registerReloadListener(new FootprintSurfaceTable());
+    }
+
+    // True if the state is in one of the footprint lists
+    public static boolean hasType(BlockState state) {
+        int id = Block.getRawIdFromState(state);
+        return id < types.length && types[id] != 0;
+    }
+
+    // Footprint type of the state, as used by the footprint decals
+    public static int getType(BlockState state) {
+        int id = Block.getRawIdFromState(state);
+        return id < types.length ? types[id] : 0;
+    }
+
+    // How far above the standing height the footprint is placed
+    public static float getOffset(BlockState state) {
+        int id = Block.getRawIdFromState(state);
+        return id < offsets.length ? offsets[id] : 0.0f;
+    }
+
+    @Override
+    public Identifier getFabricId() {
+        return ID;
+    }
+
+    @Override
+    public void reload(ResourceManager manager) {
+        byte[] newTypes = new byte[Block.STATE_IDS.size()];
+        float[] newOffsets = new float[Block.STATE_IDS.size()];
+        for (int type = 0; type < TYPE_LISTS.length; type++) {
+            for (Block block : readList(manager, TYPE_LISTS[type])) {
+                for (BlockState state : block.getStateManager().getStates()) {
+                    newTypes[Block.getRawIdFromState(state)] = (byte) (type + 1);
+                }
+            }
+        }
+        // Layered blocks (snow) raise the footprint by their layer count, raised blocks (mud) by a fixed amount
+        for (Block block : readList(manager, "layered")) {
+            for (BlockState state : block.getStateManager().getStates()) {
+                if (state.contains(Properties.LAYERS)) {
+                    newOffsets[Block.getRawIdFromState(state)] = state.get(Properties.LAYERS) * LAYER_HEIGHT;
+                }
+            }
+        }
+        for (Block block : readList(manager, "raised")) {
+            for (BlockState state : block.getStateManager().getStates()) {
+                newOffsets[Block.getRawIdFromState(state)] = RAISED_HEIGHT;
+            }
+        }
+        types = newTypes;
+        offsets = newOffsets;
+    }
+
+    // Merges the list of that name from every pack, lowest pack first
+    private static Set<Block> readList(ResourceManager manager, String name) {
+        Set<Block> blocks = new LinkedHashSet<>();
+        for (Resource resource : manager.getAllResources(Identifier.of(Windswept.MOD_ID, PATH + name + ".json"))) {
+            try (Reader reader = resource.getReader()) {
+                JsonObject json = JsonParser.parseReader(reader).getAsJsonObject();
+                if (json.has("replace") && json.get("replace").getAsBoolean()) {
+                    blocks.clear();
+                }
+                for (JsonElement value : json.getAsJsonArray("values")) {
+                    // Real block tags only reach the client with the server's data, so only block ids work here
+                    Identifier id = Identifier.tryParse(value.getAsString());
+                    Optional<Block> block = id == null ? Optional.empty() : Registries.BLOCK.getOptionalValue(id);
+                    if (block.isPresent()) {
+                        blocks.add(block.get());
+                    } else {
+                        Windswept.LOGGER.warn("Unknown block {} in footprint list {} of pack {}", value.getAsString(), name, resource.getPackId());
+                    }
+                }
+            } catch (Exception e) {
+                Windswept.LOGGER.warn("Failed to read footprint list {} of pack {}", name, resource.getPackId(), e);
+            }
+        }
+        return blocks;
+    }
+}
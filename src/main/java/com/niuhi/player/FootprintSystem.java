@@ -1,22 +1,17 @@
 package com.niuhi.player;
 
-import com.niuhi.particle.player.PlayerParticleTypes;
+import com.niuhi.entity.EntityInterestManager;
+import com.niuhi.entity.EntityStateStore;
 import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientTickEvents;
-import net.minecraft.block.Blocks;
-import net.minecraft.block.SnowBlock;
+import net.minecraft.block.BlockState;
 import net.minecraft.client.world.ClientWorld;
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.LivingEntity;
 import net.minecraft.entity.mob.MobEntity;
-import net.minecraft.particle.SimpleParticleType;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.Vec3d;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.UUID;
 
 public class FootprintSystem {
-    private static final Map<UUID, EntityStepTracker> stepTrackers = new HashMap<>();
     private static final double PLAYER_STEP_DISTANCE = 0.6; // Distance per step for players
     private static final float BASE_FOOT_OFFSET = 0.2f; // Fallback offset
     private static final float MIN_FOOT_OFFSET = 0.08f; // CHANGE: Lowered min for smaller mobs
@@ -25,6 +20,18 @@ public class FootprintSystem {
     private static final double PLAYER_MIN_VELOCITY_SQUARED = 0.01; // Velocity threshold for players
     private static final int MOB_FOOTPRINT_COOLDOWN = 6; // Cooldown in ticks (~0.3s) for mob footprints
 
+    // Step state of every entity, kept in the entity state store
+    private static final int STEP_FLAGS = EntityStateStore.allocateIntSlot(); // Bits below
+    private static final int WET_TICKS = EntityStateStore.allocateIntSlot(); // Ticks the entity still counts as wet
+    private static final int COOLDOWN = EntityStateStore.allocateIntSlot(); // Ticks until the next footprint
+    private static final int DISTANCE_TRAVELED = EntityStateStore.allocateDoubleSlot();
+    private static final int LAST_X = EntityStateStore.allocateDoubleSlot();
+    private static final int LAST_Y = EntityStateStore.allocateDoubleSlot();
+    private static final int LAST_Z = EntityStateStore.allocateDoubleSlot();
+    private static final int RIGHT_FOOT = 1; // Next footprint is the right foot, so the zeroed default is the left one
+    private static final int WAS_IN_AIR = 2; // Track if entity was in air for jump detection
+    private static final int HAS_LAST_POS = 4;
+
     public static void register() {
         // Register client tick event to track entity movement
         ClientTickEvents.END_CLIENT_TICK.register(client -> {
@@ -35,88 +42,107 @@ public class FootprintSystem {
     }
 
     private static void handleEntityMovement(ClientWorld world) {
-        // Iterate over all living entities in the world
-        for (Entity entity : world.getEntities()) {
-            if (!(entity instanceof LivingEntity livingEntity) || entity.isSpectator()) {
-                continue; // Skip non-living entities and spectators
-            }
+        // Only entities close enough to see their footprints, mid range ones every few ticks
+        EntityInterestManager.forEachInterested((entity, elapsedTicks) -> updateEntity(world, entity, elapsedTicks));
+    }
 
-            // Skip entities that are swimming
-            if (livingEntity.isSwimming()) {
-                continue;
-            }
+    private static void updateEntity(ClientWorld world, Entity entity, int elapsedTicks) {
+        if (!(entity instanceof LivingEntity livingEntity) || entity.isSpectator()) {
+            return; // Skip non-living entities and spectators
+        }
 
-            // Update wet state
-            UUID entityId = entity.getUuid();
-            EntityStepTracker tracker = stepTrackers.computeIfAbsent(entityId, k -> new EntityStepTracker());
-            if (livingEntity.isTouchingWaterOrRain()) {
-                tracker.wetTicks = WET_DURATION_TICKS; // Reset wet timer
-            } else if (tracker.wetTicks > 0) {
-                tracker.wetTicks--; // Decrement wet timer
-            }
+        // Skip entities that are swimming
+        if (livingEntity.isSwimming()) {
+            return;
+        }
 
-            // Decrement cooldown for all entities
-            if (tracker.footprintCooldown > 0) {
-                tracker.footprintCooldown--;
-            }
+        // Update wet state
+        int row = EntityStateStore.getOrCreateRow(entity);
+        if (livingEntity.isTouchingWaterOrRain()) {
+            EntityStateStore.setInt(row, WET_TICKS, WET_DURATION_TICKS); // Reset wet timer
+        } else if (EntityStateStore.getInt(row, WET_TICKS) > 0) {
+            // Decrement wet timer by the ticks since the last visit
+            EntityStateStore.setInt(row, WET_TICKS, Math.max(0, EntityStateStore.getInt(row, WET_TICKS) - elapsedTicks));
+        }
 
-            // Skip entities that are not moving on the ground or landing
-            boolean isOnGround = livingEntity.isOnGround();
-            if (!isOnGround && !tracker.wasInAir) {
-                continue;
-            }
+        // Decrement cooldown for all entities
+        if (EntityStateStore.getInt(row, COOLDOWN) > 0) {
+            EntityStateStore.setInt(row, COOLDOWN, Math.max(0, EntityStateStore.getInt(row, COOLDOWN) - elapsedTicks));
+        }
 
-            // Check for landing from a jump
-            boolean justLanded = isOnGround && tracker.wasInAir;
-            if (justLanded && tracker.footprintCooldown == 0) {
-                spawnFootprint(world, entity, tracker);
-                tracker.isLeftFoot = !tracker.isLeftFoot; // Alternate feet
-                tracker.footprintCooldown = MOB_FOOTPRINT_COOLDOWN;
-            }
+        // Skip entities that are not moving on the ground or landing
+        boolean isOnGround = livingEntity.isOnGround();
+        int flags = EntityStateStore.getInt(row, STEP_FLAGS);
+        boolean wasInAir = (flags & WAS_IN_AIR) != 0;
+        if (!isOnGround && !wasInAir) {
+            return;
+        }
 
-            // Update air state
-            tracker.wasInAir = !isOnGround;
+        // Check for landing from a jump
+        boolean justLanded = isOnGround && wasInAir;
+        if (justLanded && EntityStateStore.getInt(row, COOLDOWN) == 0) {
+            spawnFootprint(world, entity, row);
+            flags ^= RIGHT_FOOT; // Alternate feet
+            EntityStateStore.setInt(row, COOLDOWN, MOB_FOOTPRINT_COOLDOWN);
+        }
 
-            // Check for walking/running movement
-            if (!isOnGround) {
-                continue;
+        // Update air state
+        flags = isOnGround ? flags & ~WAS_IN_AIR : flags | WAS_IN_AIR;
+        EntityStateStore.setInt(row, STEP_FLAGS, flags);
+
+        // Check for walking/running movement
+        if (!isOnGround) {
+            return;
+        }
+
+        // Simplified mob footprint spawning with cooldown
+        Vec3d pos = entity.getPos();
+        boolean hasLastPos = (flags & HAS_LAST_POS) != 0;
+        if (livingEntity instanceof MobEntity) {
+            // Spawn footprint for mobs on ground with any movement, if cooldown allows
+            if (EntityStateStore.getInt(row, COOLDOWN) == 0 && hasLastPos && !isAtLastPos(row, pos)) {
+                spawnFootprint(world, entity, row);
+                flags ^= RIGHT_FOOT; // Alternate feet
+                EntityStateStore.setInt(row, COOLDOWN, MOB_FOOTPRINT_COOLDOWN);
+            }
+            setLastPos(row, flags, pos); // Update last position
+        } else {
+            // Player movement
+            if (entity.getVelocity().horizontalLengthSquared() < PLAYER_MIN_VELOCITY_SQUARED) {
+                return;
             }
 
-            // Simplified mob footprint spawning with cooldown
-            if (livingEntity instanceof MobEntity) {
-                // Spawn footprint for mobs on ground with any movement, if cooldown allows
-                Vec3d pos = entity.getPos();
-                if (tracker.footprintCooldown == 0 && tracker.lastPos != null && !pos.equals(tracker.lastPos)) {
-                    spawnFootprint(world, entity, tracker);
-                    tracker.isLeftFoot = !tracker.isLeftFoot; // Alternate feet
-                    tracker.footprintCooldown = MOB_FOOTPRINT_COOLDOWN;
-                }
-                tracker.lastPos = pos; // Update last position
-            } else {
-                // Player movement
-                if (entity.getVelocity().horizontalLengthSquared() < PLAYER_MIN_VELOCITY_SQUARED) {
-                    continue;
-                }
-
-                // Update distance traveled
-                Vec3d pos = entity.getPos();
-                double distance = tracker.lastPos == null ? 0 : pos.distanceTo(tracker.lastPos);
-                tracker.distanceTraveled += distance;
-
-                // Check if enough distance has been traveled to spawn a footprint
-                if (tracker.distanceTraveled >= PLAYER_STEP_DISTANCE) {
-                    spawnFootprint(world, entity, tracker);
-                    tracker.distanceTraveled = 0; // Reset distance
-                    tracker.isLeftFoot = !tracker.isLeftFoot; // Alternate feet
-                    tracker.footprintCooldown = MOB_FOOTPRINT_COOLDOWN;
-                }
-
-                tracker.lastPos = pos; // Update last position
+            // Update distance traveled
+            double distance = hasLastPos ? Math.sqrt(pos.squaredDistanceTo(EntityStateStore.getDouble(row, LAST_X),
+                    EntityStateStore.getDouble(row, LAST_Y), EntityStateStore.getDouble(row, LAST_Z))) : 0;
+            double distanceTraveled = EntityStateStore.getDouble(row, DISTANCE_TRAVELED) + distance;
+
+            // Check if enough distance has been traveled to spawn a footprint
+            if (distanceTraveled >= PLAYER_STEP_DISTANCE) {
+                spawnFootprint(world, entity, row);
+                distanceTraveled = 0; // Reset distance
+                flags ^= RIGHT_FOOT; // Alternate feet
+                EntityStateStore.setInt(row, COOLDOWN, MOB_FOOTPRINT_COOLDOWN);
             }
+            EntityStateStore.setDouble(row, DISTANCE_TRAVELED, distanceTraveled);
+
+            setLastPos(row, flags, pos); // Update last position
         }
     }
 
-    private static void spawnFootprint(ClientWorld world, Entity entity, EntityStepTracker tracker) {
+    private static boolean isAtLastPos(int row, Vec3d pos) {
+        return pos.x == EntityStateStore.getDouble(row, LAST_X) && pos.y == EntityStateStore.getDouble(row, LAST_Y) &&
+                pos.z == EntityStateStore.getDouble(row, LAST_Z);
+    }
+
+    private static void setLastPos(int row, int flags, Vec3d pos) {
+        EntityStateStore.setDouble(row, LAST_X, pos.x);
+        EntityStateStore.setDouble(row, LAST_Y, pos.y);
+        EntityStateStore.setDouble(row, LAST_Z, pos.z);
+        EntityStateStore.setInt(row, STEP_FLAGS, flags | HAS_LAST_POS);
+    }
+
+    private static void spawnFootprint(ClientWorld world, Entity entity, int row) {
         // CHANGE: Adjusted dynamic foot offset calculation
         float footOffset = BASE_FOOT_OFFSET;
         if (entity instanceof LivingEntity) {
@@ -130,79 +156,38 @@ public class FootprintSystem {
         // Calculate footprint position (offset left or right based on foot)
         Vec3d pos = entity.getPos();
         float yaw = entity.getYaw();
-        float offsetX = tracker.isLeftFoot ? -footOffset : footOffset;
+        boolean isLeftFoot = (EntityStateStore.getInt(row, STEP_FLAGS) & RIGHT_FOOT) == 0;
+        float offsetX = isLeftFoot ? -footOffset : footOffset;
         double x = pos.x + offsetX * Math.cos(Math.toRadians(yaw));
         double z = pos.z + offsetX * Math.sin(Math.toRadians(yaw));
         double y = pos.y;
 
-        // Adjust y position for snow layers or mud
+        // Surface under the foot: the block at the feet (thin blocks like snow layers), otherwise the one below
         BlockPos blockPos = new BlockPos((int) x, (int) (y + 0.0625), (int) z);
-        if (world.getBlockState(blockPos).isOf(Blocks.SNOW) || world.getBlockState(blockPos.down()).isOf(Blocks.SNOW)) {
-            int layers = world.getBlockState(blockPos).isOf(Blocks.SNOW) ?
-                    world.getBlockState(blockPos).get(SnowBlock.LAYERS) :
-                    world.getBlockState(blockPos.down()).get(SnowBlock.LAYERS);
-            y += layers * 0.125; // Each snow layer is 1/8 block (0.125) tall
-        } else if (world.getBlockState(blockPos).isOf(Blocks.MUD) || world.getBlockState(blockPos.down()).isOf(Blocks.MUD)) {
-            y += 0.125; // Mud is 0.9 blocks tall, add offset to place on surface
+        BlockState surface = world.getBlockState(blockPos);
+        if (!FootprintSurfaceTable.hasType(surface)) {
+            surface = world.getBlockState(blockPos.down());
         }
 
-        // Determine the block-specific particle
-        SimpleParticleType particleType = getFootprintParticle(world, x, y, z);
+        // Adjust y position for snow layers or mud, and pick the block-specific footprint
+        y += FootprintSurfaceTable.getOffset(surface);
+        int footprintType = FootprintSurfaceTable.getType(surface);
 
-        // Spawn particles based on conditions
-        if (entity instanceof LivingEntity livingEntity && (livingEntity.isTouchingWaterOrRain() || tracker.wetTicks > 0)) {
-            // If wet (in water or recently wet), spawn only wet footprint
-            world.addParticleClient(PlayerParticleTypes.FOOTPRINT_WET, x, y, z, 0, 0, 0);
+        // Add the decal based on conditions
+        if (entity instanceof LivingEntity livingEntity && (livingEntity.isTouchingWaterOrRain() || EntityStateStore.getInt(row, WET_TICKS) > 0)) {
+            // If wet (in water or recently wet), add only wet footprint
+            FootprintDecals.add(world, FootprintDecals.WET, x, y, z, yaw);
         } else if (world.isRaining() && isExposedToRain(world, x, y + 1.5, z)) {
-            // If raining and exposed, spawn both wet and block-specific footprint
-            world.addParticleClient(PlayerParticleTypes.FOOTPRINT_WET, x, y, z, 0, 0, 0);
+            // If raining and exposed, add wet footprint
+            FootprintDecals.add(world, FootprintDecals.WET, x, y, z, yaw);
         } else {
-            // Otherwise, spawn only block-specific footprint
-            world.addParticleClient(particleType, x, y, z, 0, 0, 0);
+            // Otherwise, add only block-specific footprint
+            FootprintDecals.add(world, footprintType, x, y, z, yaw);
         }
     }
 
-    private static SimpleParticleType getFootprintParticle(ClientWorld world, double x, double y, double z) {
-        // Check block state for specific blocks
-        BlockPos pos = new BlockPos((int) x, (int) (y + 0.0625), (int) z); // Slightly above for thin blocks like snow
-        BlockPos posBelow = pos.down();
-
-        if (world.getBlockState(pos).isOf(Blocks.SNOW) || world.getBlockState(posBelow).isOf(Blocks.SNOW) ||
-                world.getBlockState(pos).isOf(Blocks.SNOW_BLOCK) || world.getBlockState(posBelow).isOf(Blocks.SNOW_BLOCK) ||
-                world.getBlockState(posBelow).isOf(Blocks.POWDER_SNOW)) {
-            return PlayerParticleTypes.FOOTPRINT_SNOW;
-        }
-        if (world.getBlockState(pos).isOf(Blocks.SAND) || world.getBlockState(posBelow).isOf(Blocks.SAND) ||
-                world.getBlockState(posBelow).isOf(Blocks.SUSPICIOUS_SAND)) {
-            return PlayerParticleTypes.FOOTPRINT_SAND;
-        }
-        if (world.getBlockState(pos).isOf(Blocks.RED_SAND) || world.getBlockState(posBelow).isOf(Blocks.RED_SAND)) {
-            return PlayerParticleTypes.FOOTPRINT_REDSAND;
-        }
-        if (world.getBlockState(pos).isOf(Blocks.MUD) || world.getBlockState(posBelow).isOf(Blocks.MUD) ||
-                world.getBlockState(posBelow).isOf(Blocks.PACKED_MUD) ||
-                world.getBlockState(pos).isOf(Blocks.DIRT) || world.getBlockState(posBelow).isOf(Blocks.DIRT) ||
-                world.getBlockState(pos).isOf(Blocks.COARSE_DIRT) || world.getBlockState(posBelow).isOf(Blocks.COARSE_DIRT) ||
-                world.getBlockState(pos).isOf(Blocks.ROOTED_DIRT) || world.getBlockState(posBelow).isOf(Blocks.ROOTED_DIRT)) {
-            return PlayerParticleTypes.FOOTPRINT_MUDDY;
-        }
-
-        // Fallback to normal footprint
-        return PlayerParticleTypes.FOOTPRINT;
-    }
-
     private static boolean isExposedToRain(ClientWorld world, double x, double y, double z) {
         BlockPos pos = new BlockPos((int) x, (int) y, (int) z);
         return world.isSkyVisible(pos) && !world.getBlockState(pos.up()).isSolidBlock(world, pos.up());
     }
-
-    // Helper class to track entity movement
-    private static class EntityStepTracker {
-        Vec3d lastPos = null;
-        double distanceTraveled = 0;
-        boolean isLeftFoot = true;
-        boolean wasInAir = false; // Track if entity was in air for jump detection
-        int wetTicks = 0; // Track wet state duration
-        int footprintCooldown = 0; // Track ticks since last footprint
-    }
 }
\ No newline at end of file
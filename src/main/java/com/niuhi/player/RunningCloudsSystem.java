@@ -1,5 +1,6 @@
 package com.niuhi.player;
 
+import com.niuhi.particle.SpawnGate;
 import com.niuhi.particle.player.PlayerParticleTypes;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.world.ClientWorld;
@@ -119,6 +120,9 @@ public class RunningCloudsSystem {
     }
 
     private void spawnDustParticles(BlockPos pos, int particleCount) {
+        if (!SpawnGate.test(world, pos.getX() + 0.5, pos.getY() + 0.1, pos.getZ() + 0.5)) {
+            return;
+        }
         for (int i = 0; i < particleCount; i++) {
             // Spawn particles around player's or horse's feet
             double offsetX = (random.nextDouble() - 0.5) * 0.3;
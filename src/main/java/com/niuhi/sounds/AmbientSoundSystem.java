@@ -1,7 +1,7 @@
 package com.niuhi.sounds;
 
 import com.niuhi.Windswept;
-import com.niuhi.water.CascadeSystem;
+import com.niuhi.water.WaterfallIndex;
 import com.niuhi.weather.wind.WindSystem;
 import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientTickEvents;
 import net.minecraft.client.MinecraftClient;
@@ -70,27 +70,8 @@ public class AmbientSoundSystem {
     }
 
     private BlockPos findNearestWaterfall(BlockPos playerPos) {
-        int radius = 24;
-        BlockPos nearest = null;
-        double minDistance = Double.MAX_VALUE;
-
-        for (int x = -radius; x <= radius; x++) {
-            for (int y = -radius; y <= radius; y++) {
-                for (int z = -radius; z <= radius; z++) {
-                    BlockPos pos = playerPos.add(x, y, z);
-                    assert client.world != null;
-                    BlockPos impactPos = CascadeSystem.findWaterfallImpact(client.world, pos);
-                    if (impactPos != null) {
-                        double distance = Math.sqrt(playerPos.getSquaredDistance(impactPos));
-                        if (distance <= 24.0 && distance < minDistance) {
-                            minDistance = distance;
-                            nearest = impactPos;
-                        }
-                    }
-                }
-            }
-        }
-        return nearest;
+        // Shared with CascadeSystem, so no scanning of our own
+        return WaterfallIndex.nearest(playerPos, 24.0);
     }
 
     private float calculateCascadeVolume(BlockPos playerPos, BlockPos waterfallPos, float maxVolume) {
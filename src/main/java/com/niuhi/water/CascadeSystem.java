@@ -1,9 +1,9 @@
 package com.niuhi.water;
 
+import com.niuhi.particle.SpawnGate;
 import com.niuhi.particle.water.WaterParticleTypes;
 import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientTickEvents;
-import net.minecraft.fluid.FluidState;
-import net.minecraft.fluid.Fluids;
+import net.minecraft.client.world.ClientWorld;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.Vec3d;
 import net.minecraft.world.World;
@@ -13,170 +13,50 @@ import java.util.List;
 public class CascadeSystem {
 
     public static void register() {
+        WaterBodyTracker.register();
         ClientTickEvents.END_CLIENT_TICK.register(client -> {
-            World world = client.world;
+            ClientWorld world = client.world;
             if (world == null || client.player == null) return;
 
+            // Only visit waterfalls the index already knows about instead of probing every block in range
             BlockPos playerPos = client.player.getBlockPos();
             int radius = 32;
-            for (int x = -radius; x <= radius; x++) {
-                for (int y = -radius; y <= radius; y++) {
-                    for (int z = -radius; z <= radius; z++) {
-                        BlockPos pos = playerPos.add(x, y, z);
-                        BlockPos impactPos = findWaterfallImpact(world, pos);
-                        if (impactPos != null) {
-                            List<BlockPos> openSides = getOpenSides(world, impactPos);
-                            float baseSpawnChance = 0.05f;
-                            float waterfallIntensity = getWaterfallIntensity(world, pos);
-                            float pondSize = getPondSizeMultiplier(world, impactPos);
-                            float spawnChance = baseSpawnChance * waterfallIntensity * pondSize * (1 + openSides.size() * 0.10f);
-                            spawnChance = Math.min(spawnChance, 0.3f);
-
-                            if (world.random.nextFloat() < spawnChance) {
-                                float scale = 0.3f + (waterfallIntensity - 1.0f) * 0.15f + (openSides.size() * 0.05f);
-                                scale = Math.min(scale, 1.0f);
-                                List<Vec3d> spawnPositions = getImpactSpawnPositions(world, impactPos, openSides);
-                                int maxParticlesPerSpawn = 2 + world.random.nextInt(3);
-                                for (int i = 0; i < Math.min(spawnPositions.size(), maxParticlesPerSpawn); i++) {
-                                    Vec3d spawnPos = spawnPositions.get(i);
-                                    world.addParticleClient(WaterParticleTypes.CASCADE,
-                                            spawnPos.x, spawnPos.y, spawnPos.z,
-                                            scale, 0.0, 0.0);
-                                }
-                            }
-                        }
-                    }
-                }
-            }
+            WaterfallIndex.forEachWithin(playerPos, radius, waterfall -> spawnImpactParticles(world, waterfall.impact(), waterfall.intensity()));
         });
     }
 
-    // Find if flowing water at this position eventually hits a still water pond below
-    public static BlockPos findWaterfallImpact(World world, BlockPos pos) {
-        FluidState fluidState = world.getFluidState(pos);
-
-        // Current position must have flowing water
-        if (!fluidState.isOf(Fluids.FLOWING_WATER)) {
-            return null;
-        }
-
-        // Trace the waterfall downward to find where it hits still water
-        BlockPos checkPos = pos.down();
-        int maxDepth = 25; // Reasonable search depth for waterfalls
-
-        for (int depth = 0; depth < maxDepth; depth++) {
-            FluidState checkFluidState = world.getFluidState(checkPos);
-
-            if (checkFluidState.isOf(Fluids.WATER)) {
-                // Found still water - check if it's a proper pond
-                if (isValidPond(world, checkPos)) {
-                    return findPondSurface(world, checkPos);
-                }
-            } else if (checkFluidState.isOf(Fluids.FLOWING_WATER)) {
-                // Continue through flowing water (part of the waterfall)
-                checkPos = checkPos.down();
-                continue;
-            } else if (world.getBlockState(checkPos).isAir()) {
-                // Waterfall going through air, continue downward
-                checkPos = checkPos.down();
-                continue;
-            } else {
-                // Hit solid block without finding a pond
-                break;
-            }
-
-            checkPos = checkPos.down();
-        }
-
-        return null;
-    }
-
-    // Check if a still water position is part of a valid pond
-    private static boolean isValidPond(World world, BlockPos pos) {
-        FluidState fluidState = world.getFluidState(pos);
-
-        // Must be still water
-        if (!fluidState.isOf(Fluids.WATER)) {
-            return false;
-        }
-
-        // Check for connected still water blocks to confirm it's a pond, not isolated
-        int connectedStillWaterBlocks = 0;
-        BlockPos[] adjacentPositions = {
-                pos.north(), pos.south(), pos.east(), pos.west(),
-                pos.north().east(), pos.north().west(),
-                pos.south().east(), pos.south().west()
-        };
-
-        for (BlockPos adjacentPos : adjacentPositions) {
-            FluidState adjacentFluid = world.getFluidState(adjacentPos);
-            if (adjacentFluid.isOf(Fluids.WATER)) {
-                connectedStillWaterBlocks++;
-            }
-        }
-
-        // A pond should have at least 2 connected still water blocks
-        // This helps distinguish from single isolated water blocks
-        return connectedStillWaterBlocks >= 2;
-    }
-
-    // Find the surface (topmost still water block) of a pond
-    private static BlockPos findPondSurface(World world, BlockPos pondPos) {
-        BlockPos surface = pondPos;
-
-        // Look upward to find the topmost still water block
-        BlockPos checkPos = pondPos.up();
-        while (world.getFluidState(checkPos).isOf(Fluids.WATER) &&
-                isValidPond(world, checkPos)) {
-            surface = checkPos;
-            checkPos = checkPos.up();
+    private static void spawnImpactParticles(ClientWorld world, BlockPos impactPos, float waterfallIntensity) {
+        // Skip the whole impact when nobody can see it, before looking at its sides
+        if (!SpawnGate.test(world, impactPos.getX() + 0.5, impactPos.getY() + 1.0, impactPos.getZ() + 0.5)) {
+            return;
         }
-
-        return surface;
-    }
-
-    // Calculate waterfall intensity based on the amount and flow of water above
-    public static float getWaterfallIntensity(World world, BlockPos flowingWaterPos) {
-        int flowingBlocksAbove = 0;
-        int maxHeight = 15; // Check up to 15 blocks above
-
-        BlockPos checkPos = flowingWaterPos.up();
-        for (int i = 0; i < maxHeight; i++) {
-            FluidState fluidState = world.getFluidState(checkPos);
-            if (fluidState.isOf(Fluids.FLOWING_WATER)) {
-                flowingBlocksAbove++;
-            } else if (fluidState.isOf(Fluids.WATER)) {
-                // Still water source feeding the waterfall
-                flowingBlocksAbove += 2; // Weight source blocks more heavily
-            } else if (!world.getBlockState(checkPos).isAir()) {
-                // Hit solid block, stop checking
-                break;
+        List<BlockPos> openSides = getOpenSides(world, impactPos);
+        float baseSpawnChance = 0.05f;
+        float pondSize = getPondSizeMultiplier(impactPos);
+        float spawnChance = baseSpawnChance * waterfallIntensity * pondSize * (1 + openSides.size() * 0.10f);
+        spawnChance = Math.min(spawnChance, 0.3f);
+
+        if (world.random.nextFloat() < spawnChance) {
+            float scale = 0.3f + (waterfallIntensity - 1.0f) * 0.15f + (openSides.size() * 0.05f);
+            scale = Math.min(scale, 1.0f);
+            List<Vec3d> spawnPositions = getImpactSpawnPositions(world, impactPos, openSides);
+            int maxParticlesPerSpawn = 2 + world.random.nextInt(3);
+            for (int i = 0; i < Math.min(spawnPositions.size(), maxParticlesPerSpawn); i++) {
+                Vec3d spawnPos = spawnPositions.get(i);
+                world.addParticleClient(WaterParticleTypes.CASCADE,
+                        spawnPos.x, spawnPos.y, spawnPos.z,
+                        scale, 0.0, 0.0);
             }
-            checkPos = checkPos.up();
         }
-
-        // Convert to multiplier (1.0 = base, higher = more intense)
-        return Math.min(1.0f + (flowingBlocksAbove * 0.15f), 2.5f);
     }
 
     // Calculate pond size multiplier for spawn chance
-    private static float getPondSizeMultiplier(World world, BlockPos pondCenter) {
-        int stillWaterBlocks = 0;
-        int searchRadius = 4; // Check 4 blocks in each direction
-
-        for (int x = -searchRadius; x <= searchRadius; x++) {
-            for (int z = -searchRadius; z <= searchRadius; z++) {
-                for (int y = -2; y <= 2; y++) { // Check a few blocks up and down
-                    BlockPos checkPos = pondCenter.add(x, y, z);
-                    if (world.getFluidState(checkPos).isOf(Fluids.WATER)) {
-                        stillWaterBlocks++;
-                    }
-                }
-            }
-        }
+    private static float getPondSizeMultiplier(BlockPos pondCenter) {
+        // Surface size of the pond the waterfall lands in, tracked incrementally instead of sampled
+        int pondColumns = WaterBodyTracker.getBodySizeNear(pondCenter.getX(), pondCenter.getY(), pondCenter.getZ());
 
         // Larger ponds get higher multipliers (more spray)
-        return Math.min(1.0f + (stillWaterBlocks * 0.1f), 1.8f);
+        return Math.min(1.0f + (pondColumns * 0.1f), 1.8f);
     }
 
     // Renamed to getImpactSpawnPositions to return multiple positions
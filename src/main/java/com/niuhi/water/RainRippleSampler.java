@@ -0,0 +1,75 @@
+package com.niuhi.water;
+
+import com.niuhi.world.ChunkAnalysis;
+import com.niuhi.world.EnvironmentWorker;
+import net.minecraft.util.math.random.Random;
+
+// Picks rain ripple columns straight from the exposed water of the chunks around a point
+// Every chunk analysis lists its rain exposed water columns, so gathering is one lookup per chunk and
+// sampling only touches the columns it returns, dry land and covered water are never visited
+public class RainRippleSampler {
+    private ChunkAnalysis[] chunks = new ChunkAnalysis[0];
+    private int[] firstColumn = new int[0]; // Running count of exposed columns before each gathered chunk
+    private int chunkCount = 0;
+    private int total = 0;
+
+    @FunctionalInterface
+    public interface ColumnSink {
+        void accept(int x, int surfaceY, int z);
+    }
+
+    // Collects the analysed chunks of the square around the center chunk that have exposed water
+    public void gather(int centerChunkX, int centerChunkZ, int chunkRadius) {
+        int side = chunkRadius * 2 + 1;
+        if (chunks.length < side * side) {
+            chunks = new ChunkAnalysis[side * side];
+            firstColumn = new int[side * side];
+        }
+        chunkCount = 0;
+        total = 0;
+        for (int chunkZ = centerChunkZ - chunkRadius; chunkZ <= centerChunkZ + chunkRadius; chunkZ++) {
+            for (int chunkX = centerChunkX - chunkRadius; chunkX <= centerChunkX + chunkRadius; chunkX++) {
+                ChunkAnalysis analysis = EnvironmentWorker.getAnalysis(chunkX, chunkZ);
+                if (analysis == null || analysis.getExposedWaterColumns().length == 0) {
+                    continue;
+                }
+                chunks[chunkCount] = analysis;
+                firstColumn[chunkCount] = total;
+                chunkCount++;
+                total += analysis.getExposedWaterColumns().length;
+            }
+        }
+        // Drop references to analyses that have since been replaced
+        for (int i = chunkCount; i < chunks.length && chunks[i] != null; i++) {
+            chunks[i] = null;
+        }
+    }
+
+    // Exposed water columns gathered in the last pass
+    public int size() {
+        return total;
+    }
+
+    // Draws up to count distinct columns, one from each of count equal strata of the gathered list,
+    // which spreads them evenly over the area instead of letting them clump like independent draws
+    public void sample(Random random, int count, ColumnSink sink) {
+        count = Math.min(count, total);
+        if (count <= 0) {
+            return;
+        }
+        float stratum = (float) total / count;
+        int chunk = 0;
+        for (int i = 0; i < count; i++) {
+            int index = Math.min(total - 1, (int) ((i + random.nextFloat()) * stratum));
+            // Strata are increasing, so the owning chunk only ever moves forward
+            while (chunk + 1 < chunkCount && firstColumn[chunk + 1] <= index) {
+                chunk++;
+            }
+            ChunkAnalysis analysis = chunks[chunk];
+            int column = analysis.getExposedWaterColumns()[index - firstColumn[chunk]];
+            int x = (analysis.chunkX << 4) | (column & 15);
+            int z = (analysis.chunkZ << 4) | (column >> 4);
+            sink.accept(x, analysis.getWaterSurfaceY(x, z), z);
+        }
+    }
+}
@@ -1,20 +1,24 @@
 package com.niuhi.water;
 
+import com.niuhi.particle.SpawnGate;
 import com.niuhi.particle.water.WaterParticleTypes;
+import com.niuhi.world.ColumnCache;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.world.ClientWorld;
-import net.minecraft.fluid.Fluids;
 import net.minecraft.util.math.BlockPos;
-import net.minecraft.world.Heightmap;
 import net.fabricmc.api.EnvType;
 import net.fabricmc.api.Environment;
 import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientTickEvents;
 
 @Environment(EnvType.CLIENT)
 public class RippleSystem {
-    private static final float RIPPLE_CHANCE = 0.1f; // Reduced chance to avoid excessive particles for rain
+    private static final float RIPPLE_CHANCE = 0.1f; // Share of the exposed water columns that get a ripple per pass
+    private static final int MAX_RIPPLES_PER_PASS = 160; // Caps the particles spawned over wide open water
+    private static final int CHUNK_RADIUS = 2; // Chunks around the player's chunk, covers vanilla's 32 block particle range
     private static int tickCounter = 0;
 
+    private static final RainRippleSampler sampler = new RainRippleSampler();
+
     // Define settings for raindrop ripples
     public record RippleSettings(float sizeMultiplier, float maxAge, float animationSpeed) {
         public static final RippleSettings RAINDROP = new RippleSettings(0.8f, 20.0f, 0.6f); // Small, quick ripples for rain
@@ -29,54 +33,48 @@ public class RippleSystem {
         });
     }
 
+    // Draws the ripples of one pass from the rain exposed water around the player, the cost follows the ripple count
     public static void spawnRipplesForRain(MinecraftClient client) {
         ClientWorld world = client.world;
         if (world == null || !world.isRaining()) return; // Only spawn ripples during rain
 
         // Get the player to define a radius around them for performance
         if (client.player == null) return;
-        BlockPos playerPos = client.player.getBlockPos();
-        int radius = 32; // Process blocks within 16-block radius of player
-
-        // Iterate over a square area around the player
-        for (int x = -radius; x <= radius; x++) {
-            for (int z = -radius; z <= radius; z++) {
-                if (world.random.nextFloat() > RIPPLE_CHANCE) continue; // Randomize to reduce particle density
-
-                BlockPos pos = playerPos.add(x, 0, z);
-                // Get the topmost exposed block (rain falls from the sky)
-                int topY = world.getTopY(Heightmap.Type.MOTION_BLOCKING_NO_LEAVES, pos.getX(), pos.getZ());
-                BlockPos surfacePos = new BlockPos(pos.getX(), topY - 1, pos.getZ());
+        BlockPos center = client.player.getBlockPos();
+        sampler.gather(center.getX() >> 4, center.getZ() >> 4, CHUNK_RADIUS);
 
-                // Check if the block at the surface is water
-                if (world.getFluidState(surfacePos).isOf(Fluids.WATER)) {
-                    // Ensure the block above is air or non-colliding to confirm exposure to rain
-                    BlockPos abovePos = surfacePos.up();
-                    if (world.getBlockState(abovePos).isAir() || !world.getBlockState(abovePos).isSolidBlock(world, abovePos)) {
-                        spawnRippleAtPosition(world, surfacePos);
-                    }
-                }
+        // Rounded randomly so small ponds still get their share on average
+        int count = Math.min(MAX_RIPPLES_PER_PASS, (int) (sampler.size() * RIPPLE_CHANCE + world.random.nextFloat()));
+        sampler.sample(world.random, count, (x, surfaceY, z) -> {
+            // The analysis may lag behind recent block changes, the column cache has the current surface
+            if (ColumnCache.getWaterSurfaceY(world, x, z) == surfaceY) {
+                spawnRipple(world, x, ColumnCache.getWaterSurfaceHeight(world, x, z), z);
             }
-        }
+        });
     }
 
     public static void spawnRippleAtPosition(ClientWorld world, BlockPos pos) {
+        // Calculate water surface height
+        spawnRipple(world, pos.getX(), pos.getY() + world.getFluidState(pos).getHeight(world, pos), pos.getZ());
+    }
+
+    private static void spawnRipple(ClientWorld world, int x, double waterHeight, int z) {
         // Use raindrop-specific ripple settings
         RippleSettings settings = RippleSettings.RAINDROP;
 
-        // Calculate water surface height
-        double waterHeight = pos.getY() + world.getFluidState(pos).getHeight(world, pos);
-
         // Randomize position slightly within the block for natural variation
         double offsetX = world.random.nextDouble() * 0.6 - 0.3;
         double offsetZ = world.random.nextDouble() * 0.6 - 0.3;
+        if (!SpawnGate.test(world, x + 0.5 + offsetX, waterHeight, z + 0.5 + offsetZ)) {
+            return;
+        }
 
         // Spawn the ripple particle
         world.addParticleClient(
                 WaterParticleTypes.RIPPLE,
-                pos.getX() + 0.5 + offsetX,
+                x + 0.5 + offsetX,
                 waterHeight + 0.01, // Slightly above water surface
-                pos.getZ() + 0.5 + offsetZ,
+                z + 0.5 + offsetZ,
                 settings.sizeMultiplier,
                 settings.maxAge,
                 settings.animationSpeed
@@ -0,0 +1,195 @@
+package com.niuhi.water;
+
+import com.niuhi.world.ChunkAnalysis;
+import com.niuhi.world.SnapshotView;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
+
+// Shore edges of one chunk: surface water columns with land directly next to them
+// Built by the environment worker as part of the chunk analysis, so it only changes when the chunk
+// (or a chunk bordering on its water) changes, and wave passes just walk the cached edges
+public class Shoreline {
+    public static final Shoreline EMPTY = new Shoreline(0);
+    private static final int MIN_CLIFF_HEIGHT = 2; // Land must rise at least 2 blocks above the spawn height to count as a cliff
+    private static final float NEIGHBOUR_WEIGHT = 0.5f; // Weight of adjacent edges in a smoothed normal
+
+    private final int size;
+    private final int[] x;
+    private final int[] y; // Y of the surface water block
+    private final int[] z;
+    private final float[] normalX; // Smoothed direction pointing from the shore into the water, 0/0 in 1 wide channels
+    private final float[] normalZ;
+    private final float[] cliffHeight; // Highest land next to the edge above its spawn height, 0 if below MIN_CLIFF_HEIGHT
+    private final int[] component; // Local water component of the chunk analysis, the body is found through it
+    private final boolean[] corner; // Land on two perpendicular sides
+
+    private Shoreline(int size) {
+        this.size = size;
+        this.x = new int[size];
+        this.y = new int[size];
+        this.z = new int[size];
+        this.normalX = new float[size];
+        this.normalZ = new float[size];
+        this.cliffHeight = new float[size];
+        this.component = new int[size];
+        this.corner = new boolean[size];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getX(int edge) {
+        return x[edge];
+    }
+
+    public int getY(int edge) {
+        return y[edge];
+    }
+
+    public int getZ(int edge) {
+        return z[edge];
+    }
+
+    public float getNormalX(int edge) {
+        return normalX[edge];
+    }
+
+    public float getNormalZ(int edge) {
+        return normalZ[edge];
+    }
+
+    public float getCliffHeight(int edge) {
+        return cliffHeight[edge];
+    }
+
+    public int getComponent(int edge) {
+        return component[edge];
+    }
+
+    public boolean isCorner(int edge) {
+        return corner[edge];
+    }
+
+    // Runs on the environment worker, view reads the worker's chunk snapshots
+    public static Shoreline build(ChunkAnalysis analysis, SnapshotView view) {
+        int startX = analysis.chunkX << 4;
+        int startZ = analysis.chunkZ << 4;
+        float[] rawX = new float[256];
+        float[] rawZ = new float[256];
+        float[] cliff = new float[256];
+        boolean[] corners = new boolean[256];
+        boolean[] edges = new boolean[256];
+        int count = 0;
+
+        // Edge detection and unsmoothed normals, same rules the per-pass scan used
+        BlockPos.Mutable pos = new BlockPos.Mutable();
+        BlockPos.Mutable neighbourPos = new BlockPos.Mutable();
+        for (int index = 0; index < 256; index++) {
+            int worldX = startX + (index & 15);
+            int worldZ = startZ + (index >> 4);
+            int surfaceY = analysis.getWaterSurfaceY(worldX, worldZ);
+            if (surfaceY == ChunkAnalysis.NO_SURFACE || !view.getBlockState(pos.set(worldX, surfaceY, worldZ)).isOf(Blocks.WATER)) {
+                continue;
+            }
+
+            float sumX = 0.0f;
+            float sumZ = 0.0f;
+            boolean landAlongX = false;
+            boolean landAlongZ = false;
+            float highest = 0.0f;
+            for (Direction dir : Direction.Type.HORIZONTAL) {
+                neighbourPos.set(pos, dir);
+                BlockState neighbourState = view.getBlockState(neighbourPos);
+                if (!neighbourState.isSolidBlock(view, neighbourPos) || neighbourState.isOf(Blocks.WATER)) {
+                    continue;
+                }
+                // Add opposite direction to normal (pointing into water)
+                sumX -= dir.getOffsetX();
+                sumZ -= dir.getOffsetZ();
+                if (dir.getAxis() == Direction.Axis.X) {
+                    landAlongX = true;
+                } else {
+                    landAlongZ = true;
+                }
+
+                int neighbourTopY = getTopY(analysis, view, neighbourPos.getX(), neighbourPos.getZ());
+                int heightDiff = neighbourTopY - (surfaceY + 1); // Waves spawn on top of the water block
+                if (heightDiff >= MIN_CLIFF_HEIGHT) {
+                    highest = Math.max(highest, heightDiff);
+                }
+            }
+            if (!landAlongX && !landAlongZ) {
+                continue;
+            }
+
+            float length = (float) Math.sqrt(sumX * sumX + sumZ * sumZ);
+            rawX[index] = length > 0 ? sumX / length : 0.0f;
+            rawZ[index] = length > 0 ? sumZ / length : 0.0f;
+            cliff[index] = highest;
+            corners[index] = landAlongX && landAlongZ;
+            edges[index] = true;
+            count++;
+        }
+
+        if (count == 0) {
+            return EMPTY;
+        }
+
+        // Blend each normal with the adjacent edges at the same level, so diagonal shores curve smoothly
+        Shoreline shoreline = new Shoreline(count);
+        int edge = 0;
+        for (int index = 0; index < 256; index++) {
+            if (!edges[index]) {
+                continue;
+            }
+            int localX = index & 15;
+            int localZ = index >> 4;
+            int surfaceY = analysis.getWaterSurfaceY(startX + localX, startZ + localZ);
+            float smoothX = rawX[index];
+            float smoothZ = rawZ[index];
+            for (int dz = -1; dz <= 1; dz++) {
+                for (int dx = -1; dx <= 1; dx++) {
+                    int otherX = localX + dx;
+                    int otherZ = localZ + dz;
+                    if ((dx == 0 && dz == 0) || otherX < 0 || otherX > 15 || otherZ < 0 || otherZ > 15) {
+                        continue;
+                    }
+                    int other = (otherZ << 4) | otherX;
+                    if (edges[other] && Math.abs(analysis.getWaterSurfaceY(startX + otherX, startZ + otherZ) - surfaceY) <= 1) {
+                        smoothX += rawX[other] * NEIGHBOUR_WEIGHT;
+                        smoothZ += rawZ[other] * NEIGHBOUR_WEIGHT;
+                    }
+                }
+            }
+            float length = (float) Math.sqrt(smoothX * smoothX + smoothZ * smoothZ);
+            if (length < 1.0e-4f) {
+                // Opposite edges cancelled out, keep the column's own normal
+                smoothX = rawX[index];
+                smoothZ = rawZ[index];
+                length = 1.0f;
+            }
+
+            shoreline.x[edge] = startX + localX;
+            shoreline.y[edge] = surfaceY;
+            shoreline.z[edge] = startZ + localZ;
+            shoreline.normalX[edge] = smoothX / length;
+            shoreline.normalZ[edge] = smoothZ / length;
+            shoreline.cliffHeight[edge] = cliff[index];
+            shoreline.component[edge] = analysis.getComponent(startX + localX, startZ + localZ);
+            shoreline.corner[edge] = corners[index];
+            edge++;
+        }
+        return shoreline;
+    }
+
+    // Heightmap value of a column, from the analysis inside the chunk and from the snapshots outside it
+    private static int getTopY(ChunkAnalysis analysis, SnapshotView view, int x, int z) {
+        if (x >> 4 == analysis.chunkX && z >> 4 == analysis.chunkZ) {
+            return analysis.getTopY(x, z);
+        }
+        return view.getTopY(x, z);
+    }
+}
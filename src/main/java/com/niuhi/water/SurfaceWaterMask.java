@@ -0,0 +1,57 @@
+package com.niuhi.water;
+
+import com.niuhi.world.ChunkAnalysis;
+import com.niuhi.world.EnvironmentWorker;
+
+import java.util.Arrays;
+
+// Square mask of surface water columns around a point, stored as a summed-area table
+// Built once per scan from the published chunk analyses, after which the number of water columns in any
+// rectangle is four array reads, however large the rectangle is
+public class SurfaceWaterMask {
+    private int originX;
+    private int originZ;
+    private int size = 0;
+    private int[] table = new int[0]; // (size + 1)^2 prefix sums, row and column 0 stay zero
+
+    public void build(int centerX, int centerZ, int radius) {
+        originX = centerX - radius;
+        originZ = centerZ - radius;
+        size = radius * 2 + 1;
+        int stride = size + 1;
+        if (table.length < stride * stride) {
+            table = new int[stride * stride];
+        }
+        // The table is reused across sizes, row and column 0 of this stride may hold sums of a larger build
+        Arrays.fill(table, 0, stride * stride, 0);
+
+        ChunkAnalysis analysis = null;
+        for (int z = 0; z < size; z++) {
+            int worldZ = originZ + z;
+            int rowSum = 0;
+            for (int x = 0; x < size; x++) {
+                int worldX = originX + x;
+                if (analysis == null || analysis.chunkX != worldX >> 4 || analysis.chunkZ != worldZ >> 4) {
+                    analysis = EnvironmentWorker.getAnalysis(worldX >> 4, worldZ >> 4);
+                }
+                if (analysis != null && analysis.getWaterSurfaceY(worldX, worldZ) != ChunkAnalysis.NO_SURFACE) {
+                    rowSum++;
+                }
+                table[(z + 1) * stride + x + 1] = table[z * stride + x + 1] + rowSum;
+            }
+        }
+    }
+
+    // Surface water columns in the inclusive world rectangle, parts outside the mask count as dry
+    public int count(int minX, int minZ, int maxX, int maxZ) {
+        int x0 = Math.max(minX - originX, 0);
+        int z0 = Math.max(minZ - originZ, 0);
+        int x1 = Math.min(maxX - originX + 1, size);
+        int z1 = Math.min(maxZ - originZ + 1, size);
+        if (x0 >= x1 || z0 >= z1) {
+            return 0;
+        }
+        int stride = size + 1;
+        return table[z1 * stride + x1] - table[z0 * stride + x1] - table[z1 * stride + x0] + table[z0 * stride + x0];
+    }
+}
@@ -0,0 +1,392 @@
+package com.niuhi.water;
+
+import com.niuhi.world.ChunkAnalysis;
+import com.niuhi.world.ChunkAnalysisEvents;
+import com.niuhi.world.ScanScheduler;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientChunkEvents;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientWorldEvents;
+import net.minecraft.client.world.ClientWorld;
+import net.minecraft.util.math.ChunkPos;
+
+import java.util.Arrays;
+
+// Tracks connected bodies of surface water across all loaded chunks
+// The environment worker splits each chunk's surface water columns into local components, and a union-find
+// over those components joins them across chunk borders, so every body knows its total size and bounding box.
+// A chunk published again with the same components keeps its nodes and only updates the sizes. Union-find can't
+// split, so other changes rebuild a second forest one chunk per scheduler unit, while queries keep using the
+// complete old one until the rebuild is swapped in
+public class WaterBodyTracker {
+    private static final int NO_NODE = -1;
+
+    private static final Long2ObjectMap<ChunkSurface> chunks = new Long2ObjectOpenHashMap<>();
+
+    // Union-find nodes, one per local component
+    private static Forest forest = new Forest(1024); // Answers queries
+    private static Forest nextForest = new Forest(1024); // Built by the relink pass
+    private static int[] localSize = new int[1024]; // Values of the component itself, used when relinking
+    private static int[] localMinX = new int[1024];
+    private static int[] localMinZ = new int[1024];
+    private static int[] localMaxX = new int[1024];
+    private static int[] localMaxZ = new int[1024];
+    private static int nodeCount = 0;
+    private static final IntArrayList freeNodes = new IntArrayList();
+
+    // Nodes of removed chunks stay in the forests until a relink that started after their removal has finished,
+    // other nodes' parent chains may still go through them
+    private static final IntArrayList removedNodes = new IntArrayList(); // Removed since the running pass started
+    private static final IntArrayList passRemovedNodes = new IntArrayList(); // Freed when the running pass ends
+    private static boolean needsRelink = false; // A removal happened since the running pass started
+    private static boolean passRunning = false;
+    private static int passId = 0;
+    private static final LongArrayList passChunks = new LongArrayList(); // Chunks the running pass links, in order
+    private static int passPosition = 0;
+
+    private static class ChunkSurface {
+        final ChunkAnalysis analysis;
+        final int[] ownedNodes; // Union-find node per local component of the analysis
+
+        ChunkSurface(ChunkAnalysis analysis, int[] ownedNodes) {
+            this.analysis = analysis;
+            this.ownedNodes = ownedNodes;
+        }
+
+        int getNode(int x, int z) {
+            int component = analysis.getComponent(x, z);
+            return component == ChunkAnalysis.NO_COMPONENT ? NO_NODE : ownedNodes[component];
+        }
+    }
+
+    // Whole body values, only valid on roots
+    private static class Forest {
+        int[] parent;
+        int[] size;
+        int[] minX;
+        int[] minZ;
+        int[] maxX;
+        int[] maxZ;
+        int[] pass; // Relink pass that last reset the node
+
+        Forest(int capacity) {
+            parent = new int[capacity];
+            size = new int[capacity];
+            minX = new int[capacity];
+            minZ = new int[capacity];
+            maxX = new int[capacity];
+            maxZ = new int[capacity];
+            pass = new int[capacity];
+        }
+
+        void grow(int capacity) {
+            parent = Arrays.copyOf(parent, capacity);
+            size = Arrays.copyOf(size, capacity);
+            minX = Arrays.copyOf(minX, capacity);
+            minZ = Arrays.copyOf(minZ, capacity);
+            maxX = Arrays.copyOf(maxX, capacity);
+            maxZ = Arrays.copyOf(maxZ, capacity);
+            pass = Arrays.copyOf(pass, capacity);
+        }
+
+        int find(int node) {
+            while (parent[node] != node) {
+                parent[node] = parent[parent[node]]; // Path halving
+                node = parent[node];
+            }
+            return node;
+        }
+
+        void union(int a, int b) {
+            int rootA = find(a);
+            int rootB = find(b);
+            if (rootA == rootB) {
+                return;
+            }
+            // Union by size keeps the trees shallow
+            if (size[rootA] < size[rootB]) {
+                int swap = rootA;
+                rootA = rootB;
+                rootB = swap;
+            }
+            parent[rootB] = rootA;
+            size[rootA] += size[rootB];
+            minX[rootA] = Math.min(minX[rootA], minX[rootB]);
+            minZ[rootA] = Math.min(minZ[rootA], minZ[rootB]);
+            maxX[rootA] = Math.max(maxX[rootA], maxX[rootB]);
+            maxZ[rootA] = Math.max(maxZ[rootA], maxZ[rootB]);
+        }
+
+        void reset(int node) {
+            parent[node] = node;
+            size[node] = localSize[node];
+            minX[node] = localMinX[node];
+            minZ[node] = localMinZ[node];
+            maxX[node] = localMaxX[node];
+            maxZ[node] = localMaxZ[node];
+            pass[node] = passId;
+        }
+    }
+
+    public static void register() {
+        ChunkAnalysisEvents.PUBLISHED.register(WaterBodyTracker::onPublished);
+        ClientChunkEvents.CHUNK_UNLOAD.register((world, chunk) -> removeChunk(chunk.getPos().toLong()));
+        ClientWorldEvents.AFTER_CLIENT_WORLD_CHANGE.register((client, world) -> clear());
+        ScanScheduler.addTask(new RelinkScan());
+    }
+
+    // Rebuilds the next forest one chunk per unit and swaps it in at the end
+    private static class RelinkScan implements ScanScheduler.ScanTask {
+        @Override
+        public boolean hasWork() {
+            return passRunning || needsRelink;
+        }
+
+        @Override
+        public void processUnit(ClientWorld world) {
+            if (!passRunning) {
+                startPass();
+                return;
+            }
+            if (passPosition < passChunks.size()) {
+                ChunkSurface surface = chunks.get(passChunks.getLong(passPosition++));
+                if (surface != null) {
+                    relinkChunk(surface);
+                }
+                return;
+            }
+            finishPass();
+        }
+    }
+
+    // Number of surface water columns in the body that contains this column, 0 if there is none
+    public static int getBodySize(int x, int y, int z) {
+        int node = getNode(x, y, z);
+        return node == NO_NODE ? 0 : forest.size[forest.find(node)];
+    }
+
+    // Size of the largest body touching the 3x3 columns around this position
+    // Pond impacts sit under their waterfall, so their own column usually reports the waterfall's top instead
+    public static int getBodySizeNear(int x, int y, int z) {
+        int largest = 0;
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dz = -1; dz <= 1; dz++) {
+                largest = Math.max(largest, getBodySize(x + dx, y, z + dz));
+            }
+        }
+        return largest;
+    }
+
+    // Longest side of the body's bounding box in blocks, 0 if there is none
+    public static int getBodyExtent(int x, int y, int z) {
+        int node = getNode(x, y, z);
+        if (node == NO_NODE) {
+            return 0;
+        }
+        int root = forest.find(node);
+        return Math.max(forest.maxX[root] - forest.minX[root], forest.maxZ[root] - forest.minZ[root]) + 1;
+    }
+
+    private static int getNode(int x, int y, int z) {
+        ChunkSurface surface = chunks.get(ChunkPos.toLong(x >> 4, z >> 4));
+        if (surface == null) {
+            return NO_NODE;
+        }
+        // Only answer for positions at the water surface, not for caves below a lake
+        int node = surface.getNode(x, z);
+        if (node == NO_NODE || Math.abs(surface.analysis.getWaterSurfaceY(x, z) - y) > 1) {
+            return NO_NODE;
+        }
+        return node;
+    }
+
+    private static void onPublished(ChunkAnalysis analysis) {
+        long chunkKey = ChunkPos.toLong(analysis.chunkX, analysis.chunkZ);
+        ChunkSurface previous = chunks.get(chunkKey);
+        if (previous != null && hasSameComponents(previous.analysis, analysis)) {
+            updateSizes(previous.ownedNodes, analysis);
+            chunks.put(chunkKey, new ChunkSurface(analysis, previous.ownedNodes));
+            return;
+        }
+        removeChunk(chunkKey);
+
+        int[] ownedNodes = new int[analysis.getComponentCount()];
+        for (int component = 0; component < ownedNodes.length; component++) {
+            int node = allocateNode();
+            ownedNodes[component] = node;
+            localSize[node] = analysis.getComponentSize(component);
+            localMinX[node] = analysis.getComponentMinX(component);
+            localMinZ[node] = analysis.getComponentMinZ(component);
+            localMaxX[node] = analysis.getComponentMaxX(component);
+            localMaxZ[node] = analysis.getComponentMaxZ(component);
+            forest.reset(node);
+        }
+
+        ChunkSurface surface = new ChunkSurface(analysis, ownedNodes);
+        chunks.put(chunkKey, surface);
+        linkChunk(forest, surface);
+        if (passRunning) {
+            passChunks.add(chunkKey); // Not in the running pass yet
+        }
+    }
+
+    // True if the chunk's components are the same bodies as before, only grown or shrunk by columns inside the chunk:
+    // same numbering, same bounding boxes, and unchanged border columns so the links to the neighbours still hold
+    private static boolean hasSameComponents(ChunkAnalysis previous, ChunkAnalysis analysis) {
+        int count = analysis.getComponentCount();
+        if (previous.getComponentCount() != count) {
+            return false;
+        }
+        for (int component = 0; component < count; component++) {
+            if (previous.getComponentMinX(component) != analysis.getComponentMinX(component) ||
+                    previous.getComponentMinZ(component) != analysis.getComponentMinZ(component) ||
+                    previous.getComponentMaxX(component) != analysis.getComponentMaxX(component) ||
+                    previous.getComponentMaxZ(component) != analysis.getComponentMaxZ(component)) {
+                return false;
+            }
+        }
+        for (int z = 0; z < 16; z++) {
+            for (int x = 0; x < 16; x++) {
+                int before = previous.getComponent(x, z);
+                int after = analysis.getComponent(x, z);
+                boolean border = x == 0 || x == 15 || z == 0 || z == 15;
+                if (border ? before != after || previous.getWaterSurfaceY(x, z) != analysis.getWaterSurfaceY(x, z)
+                        : before != after && before != ChunkAnalysis.NO_COMPONENT && after != ChunkAnalysis.NO_COMPONENT) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    // Moves the difference in component size onto the bodies, in both forests
+    private static void updateSizes(int[] ownedNodes, ChunkAnalysis analysis) {
+        for (int component = 0; component < ownedNodes.length; component++) {
+            int node = ownedNodes[component];
+            int change = analysis.getComponentSize(component) - localSize[node];
+            localSize[node] += change;
+            forest.size[forest.find(node)] += change;
+            if (passRunning && nextForest.pass[node] == passId) {
+                nextForest.size[nextForest.find(node)] += change; // Otherwise the pass resets it with the new size
+            }
+        }
+    }
+
+    // Joins the chunk's components with those of its loaded neighbours
+    private static void linkChunk(Forest target, ChunkSurface surface) {
+        int chunkX = surface.analysis.chunkX;
+        int chunkZ = surface.analysis.chunkZ;
+        linkBorder(target, surface, chunks.get(ChunkPos.toLong(chunkX + 1, chunkZ)), true);
+        linkBorder(target, surface, chunks.get(ChunkPos.toLong(chunkX, chunkZ + 1)), false);
+        linkBorder(target, chunks.get(ChunkPos.toLong(chunkX - 1, chunkZ)), surface, true);
+        linkBorder(target, chunks.get(ChunkPos.toLong(chunkX, chunkZ - 1)), surface, false);
+    }
+
+    // Links the east (or south) edge of one chunk to the west (or north) edge of the next
+    private static void linkBorder(Forest target, ChunkSurface first, ChunkSurface second, boolean alongX) {
+        if (first == null || second == null) {
+            return;
+        }
+        for (int i = 0; i < 16; i++) {
+            int firstX = alongX ? 15 : i;
+            int firstZ = alongX ? i : 15;
+            int secondX = alongX ? 0 : i;
+            int secondZ = alongX ? i : 0;
+            int firstNode = first.getNode(firstX, firstZ);
+            int secondNode = second.getNode(secondX, secondZ);
+            if (firstNode != NO_NODE && secondNode != NO_NODE && ChunkAnalysis.isConnected(
+                    first.analysis.getWaterSurfaceY(firstX, firstZ), second.analysis.getWaterSurfaceY(secondX, secondZ))) {
+                target.union(firstNode, secondNode);
+            }
+        }
+    }
+
+    private static void startPass() {
+        passId++;
+        passRunning = true;
+        needsRelink = false;
+        passChunks.clear();
+        passChunks.addAll(chunks.keySet());
+        passPosition = 0;
+        passRemovedNodes.addAll(removedNodes);
+        removedNodes.clear();
+    }
+
+    // Links the chunk to all its neighbours in the next forest, resetting nodes the pass hasn't reached yet.
+    // Neighbours published later link back when the pass gets to them
+    private static void relinkChunk(ChunkSurface surface) {
+        prepareNodes(surface);
+        int chunkX = surface.analysis.chunkX;
+        int chunkZ = surface.analysis.chunkZ;
+        for (int side = 0; side < 4; side++) {
+            int dx = side == 0 ? 1 : side == 1 ? -1 : 0;
+            int dz = side == 2 ? 1 : side == 3 ? -1 : 0;
+            ChunkSurface neighbour = chunks.get(ChunkPos.toLong(chunkX + dx, chunkZ + dz));
+            if (neighbour != null) {
+                prepareNodes(neighbour);
+            }
+        }
+        linkChunk(nextForest, surface);
+    }
+
+    private static void prepareNodes(ChunkSurface surface) {
+        for (int node : surface.ownedNodes) {
+            if (nextForest.pass[node] != passId) {
+                nextForest.reset(node);
+            }
+        }
+    }
+
+    private static void finishPass() {
+        Forest swap = forest;
+        forest = nextForest;
+        nextForest = swap;
+        freeNodes.addAll(passRemovedNodes);
+        passRemovedNodes.clear();
+        passRunning = false;
+    }
+
+    // The chunk's nodes stay where they are until a relink has replaced the forests
+    private static void removeChunk(long chunkKey) {
+        ChunkSurface surface = chunks.remove(chunkKey);
+        if (surface == null) {
+            return;
+        }
+        for (int node : surface.ownedNodes) {
+            removedNodes.add(node);
+        }
+        if (surface.ownedNodes.length > 0) {
+            needsRelink = true;
+        }
+    }
+
+    private static int allocateNode() {
+        if (!freeNodes.isEmpty()) {
+            return freeNodes.popInt();
+        }
+        if (nodeCount == localSize.length) {
+            int capacity = localSize.length * 2;
+            forest.grow(capacity);
+            nextForest.grow(capacity);
+            localSize = Arrays.copyOf(localSize, capacity);
+            localMinX = Arrays.copyOf(localMinX, capacity);
+            localMinZ = Arrays.copyOf(localMinZ, capacity);
+            localMaxX = Arrays.copyOf(localMaxX, capacity);
+            localMaxZ = Arrays.copyOf(localMaxZ, capacity);
+        }
+        return nodeCount++;
+    }
+
+    private static void clear() {
+        chunks.clear();
+        freeNodes.clear();
+        removedNodes.clear();
+        passRemovedNodes.clear();
+        passChunks.clear();
+        nodeCount = 0;
+        needsRelink = false;
+        passRunning = false;
+    }
+}
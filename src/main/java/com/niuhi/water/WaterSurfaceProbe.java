@@ -0,0 +1,71 @@
+package com.niuhi.water;
+
+import com.niuhi.world.ColumnCache;
+import com.niuhi.world.SectionFlags;
+import net.minecraft.client.world.ClientWorld;
+import net.minecraft.entity.Entity;
+import net.minecraft.fluid.FluidState;
+import net.minecraft.registry.tag.FluidTags;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.MathHelper;
+
+// Finds the water surface at an entity by looking only at the blocks around its bounding box
+// A column the column cache already knows is answered without reading the world, otherwise only a small band
+// from just below the feet to just above the head is read, never the whole column
+public class WaterSurfaceProbe {
+    private static final int BAND_BELOW = 1; // Blocks probed below the feet
+    private static final int BAND_ABOVE = 1; // Blocks probed above the top of the bounding box
+
+    private static final BlockPos.Mutable probePos = new BlockPos.Mutable();
+
+    // Filled in by probe, callers keep one instance and reuse it for every entity
+    public static class Result {
+        public boolean found; // There is a water surface at or above the band
+        public double surfaceY; // Exact surface height (block Y plus fluid height), only valid if found
+
+        private Result set(boolean found, double surfaceY) {
+            this.found = found;
+            this.surfaceY = surfaceY;
+            return this;
+        }
+    }
+
+    public static Result probe(ClientWorld world, Entity entity, Result result) {
+        int x = MathHelper.floor(entity.getX());
+        int z = MathHelper.floor(entity.getZ());
+        int feetY = MathHelper.floor(entity.getY());
+        int bandBottom = feetY - BAND_BELOW;
+        int bandTop = MathHelper.floor(entity.getBoundingBox().maxY) + BAND_ABOVE;
+
+        double cached = ColumnCache.getCachedWaterSurfaceHeight(x, z);
+        if (cached == Double.MIN_VALUE) {
+            return result.set(false, 0.0); // No water anywhere below the top of the column
+        }
+        if (!Double.isNaN(cached) && cached < bandBottom) {
+            return result.set(false, 0.0); // The column's top water is below the band, so the band holds none
+        }
+        if (!Double.isNaN(cached) && cached <= bandTop + 1) {
+            // The column's top water surface lies in the band, which is exactly what the band scan would find
+            return result.set(true, cached);
+        }
+
+        for (int y = bandTop; y >= bandBottom; y--) {
+            // Skip the parts of the band in sections without water
+            if (((y & 15) == 15 || y == bandTop) && !SectionFlags.hasAny(world, x, y, z, SectionFlags.WATER)) {
+                y &= ~15; // Continue with the top block of the next section down
+                continue;
+            }
+            FluidState fluidState = world.getFluidState(probePos.set(x, y, z));
+            if (!fluidState.isIn(FluidTags.WATER)) {
+                continue;
+            }
+            if (y == bandTop) {
+                // Water goes on above the band, the entity is under the surface
+                double surfaceY = ColumnCache.getWaterSurfaceHeight(world, x, z);
+                return result.set(surfaceY != Double.MIN_VALUE, surfaceY);
+            }
+            return result.set(true, y + fluidState.getHeight(world, probePos));
+        }
+        return result.set(false, 0.0);
+    }
+}
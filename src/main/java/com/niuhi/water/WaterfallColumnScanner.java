@@ -0,0 +1,128 @@
+package com.niuhi.water;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.fluid.FluidState;
+import net.minecraft.fluid.Fluids;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.BlockView;
+
+import java.util.function.IntPredicate;
+
+// Finds every waterfall in a single x/z column with one top to bottom pass
+// Matches CascadeSystem's old per-block trace: sources fall through flowing water, air and
+// isolated still water for up to 25 blocks, and intensity counts the water up to 15 blocks above
+public class WaterfallColumnScanner {
+    private static final int MAX_DEPTH = 25; // Same search depth the per-block trace used
+    private static final int INTENSITY_HEIGHT = 15; // Blocks above a source that feed its intensity
+
+    private static final int AIR = 0;
+    private static final int FLOWING = 1;
+    private static final int STILL = 2;
+    private static final int SOLID = 3;
+
+    @FunctionalInterface
+    public interface Sink {
+        void accept(int sourceY, int impactY, float intensity);
+    }
+
+    // Scratch state, scanning only happens on one thread at a time
+    private static final int[] intensityWindow = new int[16];
+    private static final int[] pendingY = new int[32];
+    private static final float[] pendingIntensity = new float[32];
+    private static final BlockPos.Mutable scanPos = new BlockPos.Mutable();
+    private static final BlockPos.Mutable pondPos = new BlockPos.Mutable();
+
+    // sectionHasWater is asked per section coordinate, sections without water are skipped while no trace is running
+    public static void scanColumn(BlockView view, int x, int z, int minY, int maxY, IntPredicate sectionHasWater, Sink sink) {
+        int windowSum = 0; // Intensity weight of the non-solid blocks directly above the current one
+        int windowLength = 0;
+        int pendingStart = 0; // Ring of flowing sources still looking for a pond
+        int pendingCount = 0;
+
+        for (int y = maxY; y >= minY; y--) {
+            // A dry section can't start or end a trace, and leaves nothing in the intensity window below it
+            if (pendingCount == 0 && ((y & 15) == 15 || y == maxY) && !sectionHasWater.test(y >> 4)) {
+                windowSum = 0;
+                windowLength = 0;
+                y &= ~15; // Continue with the top block of the next section down
+                continue;
+            }
+
+            BlockState state = view.getBlockState(scanPos.set(x, y, z));
+            int type = classify(state);
+
+            // Sources further up than the trace depth can no longer land here
+            while (pendingCount > 0 && pendingY[pendingStart] - y > MAX_DEPTH) {
+                pendingStart = (pendingStart + 1) & 31;
+                pendingCount--;
+            }
+
+            // Continue the downward trace of every pending source through this block
+            if (pendingCount > 0) {
+                if (type == STILL) {
+                    if (isValidPond(view, x, y, z)) {
+                        for (int i = 0; i < pendingCount; i++) {
+                            int index = (pendingStart + i) & 31;
+                            sink.accept(pendingY[index], y, pendingIntensity[index]);
+                        }
+                        pendingCount = 0;
+                    }
+                } else if (type == SOLID) {
+                    pendingCount = 0; // Hit solid ground without finding a pond
+                }
+            }
+
+            // Flowing water starts its own trace one block further down
+            if (type == FLOWING) {
+                float intensity = Math.min(1.0f + (windowSum * 0.15f), 2.5f);
+                int index = (pendingStart + pendingCount) & 31;
+                pendingY[index] = y;
+                pendingIntensity[index] = intensity;
+                pendingCount++;
+            }
+
+            // Slide the intensity window down by one block
+            if (type == SOLID) {
+                windowSum = 0;
+                windowLength = 0;
+            } else {
+                int weight = type == FLOWING ? 1 : type == STILL ? 2 : 0; // Source blocks weigh more heavily
+                intensityWindow[y & 15] = weight;
+                windowSum += weight;
+                windowLength++;
+                if (windowLength > INTENSITY_HEIGHT) {
+                    windowSum -= intensityWindow[(y + INTENSITY_HEIGHT) & 15];
+                    windowLength = INTENSITY_HEIGHT;
+                }
+            }
+        }
+    }
+
+    private static int classify(BlockState state) {
+        FluidState fluidState = state.getFluidState();
+        if (fluidState.isOf(Fluids.WATER)) {
+            return STILL;
+        } else if (fluidState.isOf(Fluids.FLOWING_WATER)) {
+            return FLOWING;
+        } else if (state.isAir()) {
+            return AIR;
+        }
+        return SOLID;
+    }
+
+    // A pond needs at least 2 still water blocks around it, so single isolated blocks don't count
+    static boolean isValidPond(BlockView view, int x, int y, int z) {
+        int connectedStillWaterBlocks = 0;
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dz = -1; dz <= 1; dz++) {
+                if (dx == 0 && dz == 0) {
+                    continue;
+                }
+                if (view.getFluidState(pondPos.set(x + dx, y, z + dz)).isOf(Fluids.WATER)) {
+                    connectedStillWaterBlocks++;
+                }
+            }
+        }
+        return connectedStillWaterBlocks >= 2;
+    }
+}
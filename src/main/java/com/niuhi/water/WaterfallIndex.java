@@ -0,0 +1,74 @@
+package com.niuhi.water;
+
+import com.niuhi.world.ChunkAnalysis;
+import com.niuhi.world.EnvironmentWorker;
+import net.minecraft.util.math.BlockPos;
+
+import java.util.function.Consumer;
+
+// Nearest and radius queries over the waterfalls found by the environment worker
+// Every chunk analysis carries the waterfalls of its columns, so the chunk grid doubles as the spatial structure
+public class WaterfallIndex {
+    // Flowing water block that falls onto a pond, with the intensity of the water feeding it
+    public record Waterfall(BlockPos source, BlockPos impact, float intensity) {
+    }
+
+    // Nearest waterfall impact within radius of pos, or null if there is none
+    public static BlockPos nearest(BlockPos pos, double radius) {
+        BlockPos nearest = null;
+        double nearestDistanceSq = radius * radius;
+        int blockRadius = (int) Math.ceil(radius);
+
+        for (int chunkX = (pos.getX() - blockRadius) >> 4; chunkX <= (pos.getX() + blockRadius) >> 4; chunkX++) {
+            for (int chunkZ = (pos.getZ() - blockRadius) >> 4; chunkZ <= (pos.getZ() + blockRadius) >> 4; chunkZ++) {
+                ChunkAnalysis chunk = EnvironmentWorker.getAnalysis(chunkX, chunkZ);
+                if (chunk == null || !chunk.hasWaterfalls() || horizontalDistanceSqToChunk(pos, chunkX, chunkZ) > nearestDistanceSq) {
+                    continue;
+                }
+                for (BlockPos impact : chunk.getWaterfallImpacts()) {
+                    double distanceSq = pos.getSquaredDistance(impact);
+                    if (distanceSq <= nearestDistanceSq) {
+                        nearestDistanceSq = distanceSq;
+                        nearest = impact;
+                    }
+                }
+            }
+        }
+        return nearest;
+    }
+
+    // Calls the consumer for every waterfall whose impact lies within radius of pos
+    public static void forEachWithin(BlockPos pos, double radius, Consumer<Waterfall> consumer) {
+        double radiusSq = radius * radius;
+        int blockRadius = (int) Math.ceil(radius);
+
+        for (int chunkX = (pos.getX() - blockRadius) >> 4; chunkX <= (pos.getX() + blockRadius) >> 4; chunkX++) {
+            for (int chunkZ = (pos.getZ() - blockRadius) >> 4; chunkZ <= (pos.getZ() + blockRadius) >> 4; chunkZ++) {
+                ChunkAnalysis chunk = EnvironmentWorker.getAnalysis(chunkX, chunkZ);
+                if (chunk == null || !chunk.hasWaterfalls() || horizontalDistanceSqToChunk(pos, chunkX, chunkZ) > radiusSq) {
+                    continue;
+                }
+                for (int index = 0; index < 256; index++) {
+                    Waterfall[] column = chunk.getWaterfalls(index);
+                    if (column == null) {
+                        continue;
+                    }
+                    for (Waterfall waterfall : column) {
+                        if (pos.getSquaredDistance(waterfall.impact()) <= radiusSq) {
+                            consumer.accept(waterfall);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    // Lets queries skip whole chunks that can't hold anything within range
+    private static double horizontalDistanceSqToChunk(BlockPos pos, int chunkX, int chunkZ) {
+        int startX = chunkX << 4;
+        int startZ = chunkZ << 4;
+        int dx = Math.max(0, Math.max(startX - pos.getX(), pos.getX() - (startX + 15)));
+        int dz = Math.max(0, Math.max(startZ - pos.getZ(), pos.getZ() - (startZ + 15)));
+        return dx * dx + dz * dz;
+    }
+}
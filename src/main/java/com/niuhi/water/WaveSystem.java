@@ -1,26 +1,21 @@
 package com.niuhi.water;
 
+import com.niuhi.particle.DeferredSpawnWheel;
 import com.niuhi.particle.water.WaterParticleTypes;
+import com.niuhi.world.ChunkAnalysis;
+import com.niuhi.world.EnvironmentWorker;
+import com.niuhi.world.ScanScheduler;
 import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientTickEvents;
-import net.minecraft.block.BlockState;
-import net.minecraft.block.Blocks;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.world.ClientWorld;
 import net.minecraft.particle.ParticleEffect;
 import net.minecraft.util.math.BlockPos;
-import net.minecraft.util.math.Direction;
 import net.minecraft.util.math.random.Random;
-import net.minecraft.world.Heightmap;
-
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Iterator;
 
 public class WaveSystem {
     private static int tickCounter = 0;
     private static final int TICK_INTERVAL = 40; // Base interval for checking wave spawns (2 seconds)
-    private static final int MIN_WATER_BLOCKS = 15; // Minimum water blocks for large water body
-    private static final int CHECK_RADIUS = 2; // 5x5 area
+    private static final int MIN_BODY_SIZE = 64; // Minimum surface columns for a large water body (about an 8x8 pond)
     private static final int PARTICLES_PER_GROUP = 4; // Number of particles in a group
     private static final float GROUP_SPREAD = 0.3f; // Base spread along shoreline (in blocks)
     private static final float RANDOM_OFFSET = 0.15f; // Random offset for less uniformity
@@ -28,198 +23,158 @@ public class WaveSystem {
     private static final float SPLASH_HEIGHT_THRESHOLD = 5.0f; // Threshold for BIGSPLASH vs SPLASH
     private static final int WAVE_SPAWN_DELAY_RANGE = 20; // Random delay for wave groups (0-20 ticks)
     private static final int SPLASH_SPAWN_DELAY_RANGE = 10; // Random delay for splashes (0-10 ticks)
+    private static final int RADIUS = 32; // Scan radius around the player
+    private static final float MIN_WINDOW_FILL = 0.6f; // Share of the window around an edge that must be surface water (15 of 25 at 5x5)
+    private static int windowRadius = 2; // Half size of that window, 2 is 5x5
 
-    // List to store pending particle spawns
-    private static final List<PendingSpawn> pendingSpawns = new ArrayList<>();
+    // Surface water around the pass center, rebuilt at the start of every pass
+    private static final SurfaceWaterMask surfaceMask = new SurfaceWaterMask();
 
-    // Class to represent a pending particle spawn
-        private record PendingSpawn(ParticleEffect particleType, double x, double y, double z, double velocityX,
-                                    double velocityY, double velocityZ, int spawnTick) {
-    }
+    // Wave pass in progress, one chunk of the covered square per scheduler unit
+    private static BlockPos passCenter = null;
+    private static int passMinChunkX = 0;
+    private static int passMinChunkZ = 0;
+    private static int passChunksX = 0;
+    private static int passChunksZ = 0;
+    private static int nextChunk = 0;
 
     public static void register() {
+        ScanScheduler.addTask(new WaveScan());
         ClientTickEvents.END_CLIENT_TICK.register(client -> {
             tickCounter++;
-            // Process pending spawns every tick
-            processPendingSpawns(client);
-            // Check for new wave spawns at interval
-            if (tickCounter >= TICK_INTERVAL) {
+            // Start a new wave pass at interval, once the previous one has been fully scanned
+            if (tickCounter >= TICK_INTERVAL && passCenter == null) {
                 tickCounter = 0;
-                scheduleWaveParticles(client);
+                startWavePass(client);
             }
         });
     }
 
-    private static void processPendingSpawns(MinecraftClient client) {
-        ClientWorld world = client.world;
-        if (world == null) {
-            return;
+    // One unit schedules the cached shore edges of one chunk in range
+    private static class WaveScan implements ScanScheduler.ScanTask {
+        @Override
+        public boolean hasWork() {
+            return passCenter != null;
         }
 
-        // Use iterator to safely remove entries while iterating
-        Iterator<PendingSpawn> iterator = pendingSpawns.iterator();
-        while (iterator.hasNext()) {
-            PendingSpawn spawn = iterator.next();
-            if (tickCounter >= spawn.spawnTick) {
-                world.addParticleClient(spawn.particleType, spawn.x, spawn.y, spawn.z,
-                        spawn.velocityX, spawn.velocityY, spawn.velocityZ);
-                iterator.remove(); // Remove processed spawn
+        @Override
+        public void processUnit(ClientWorld world) {
+            int chunkX = passMinChunkX + nextChunk % passChunksX;
+            int chunkZ = passMinChunkZ + nextChunk / passChunksX;
+            ChunkAnalysis analysis = EnvironmentWorker.getAnalysis(chunkX, chunkZ);
+            if (analysis != null) {
+                Shoreline shoreline = analysis.getShoreline();
+                for (int edge = 0; edge < shoreline.size(); edge++) {
+                    if (Math.abs(shoreline.getX(edge) - passCenter.getX()) <= RADIUS &&
+                            Math.abs(shoreline.getZ(edge) - passCenter.getZ()) <= RADIUS) {
+                        scheduleWaveGroup(world.random, shoreline, edge);
+                    }
+                }
+            }
+            nextChunk++;
+            if (nextChunk >= passChunksX * passChunksZ) {
+                passCenter = null;
             }
         }
     }
 
-    private static void scheduleWaveParticles(MinecraftClient client) {
-        ClientWorld world = client.world;
-        if (world == null || client.player == null) {
+    private static void startWavePass(MinecraftClient client) {
+        if (client.world == null || client.player == null) {
             return;
         }
+        passCenter = client.player.getBlockPos();
+        passMinChunkX = (passCenter.getX() - RADIUS) >> 4;
+        passMinChunkZ = (passCenter.getZ() - RADIUS) >> 4;
+        passChunksX = ((passCenter.getX() + RADIUS) >> 4) - passMinChunkX + 1;
+        passChunksZ = ((passCenter.getZ() + RADIUS) >> 4) - passMinChunkZ + 1;
+        nextChunk = 0;
+        surfaceMask.build(passCenter.getX(), passCenter.getZ(), RADIUS + windowRadius);
+    }
 
-        BlockPos playerPos = client.player.getBlockPos();
-        Random random = world.random;
-        int radius = 32;
-
-        for (int x = -radius; x <= radius; x++) {
-            for (int z = -radius; z <= radius; z++) {
-                int worldX = playerPos.getX() + x;
-                int worldZ = playerPos.getZ() + z;
-                // Get surface height to limit Y checks
-                int topY = world.getTopY(Heightmap.Type.MOTION_BLOCKING_NO_LEAVES, worldX, worldZ);
-                BlockPos checkPos = new BlockPos(worldX, topY - 1, worldZ);
-                BlockState state = world.getBlockState(checkPos);
-
-                if (state.isOf(Blocks.WATER)) {
-                    // Check for surface water (air or non-water above)
-                    BlockState aboveState = world.getBlockState(checkPos.up());
-                    if (!aboveState.isAir() && aboveState.isOf(Blocks.WATER)) {
-                        continue;
-                    }
-
-                    // Check sky exposure
-                    if (checkPos.getY() < topY - 1) {
-                        continue; // Skip if not at surface height
-                    }
+    public static int getWindowRadius() {
+        return windowRadius;
+    }
 
-                    // Check for land edge and compute direction
-                    boolean isEdge = false;
-                    int waterNeighbors = 0;
-                    float normalX = 0.0f;
-                    float normalZ = 0.0f;
-                    for (Direction dir : Direction.Type.HORIZONTAL) {
-                        BlockPos neighborPos = checkPos.offset(dir);
-                        BlockState neighborState = world.getBlockState(neighborPos);
-                        if (neighborState.isSolidBlock(world, neighborPos) && !neighborState.isOf(Blocks.WATER)) {
-                            isEdge = true;
-                            // Add opposite direction to normal (pointing into water)
-                            normalX -= dir.getOffsetX();
-                            normalZ -= dir.getOffsetZ();
-                        } else if (neighborState.isOf(Blocks.WATER)) {
-                            waterNeighbors++;
-                        }
-                    }
+    public static void setWindowRadius(int radius) {
+        windowRadius = Math.max(0, radius);
+    }
 
-                    // Normalize direction vector
-                    float length = (float) Math.sqrt(normalX * normalX + normalZ * normalZ);
-                    if (length > 0) {
-                        normalX /= length;
-                        normalZ /= length;
-                    } else {
-                        normalX = random.nextFloat() - 0.5f; // Fallback random direction
-                        normalZ = random.nextFloat() - 0.5f;
-                        length = (float) Math.sqrt(normalX * normalX + normalZ * normalZ);
-                        if (length > 0) {
-                            normalX /= length;
-                            normalZ /= length;
-                        }
-                    }
+    private static void scheduleWaveGroup(Random random, Shoreline shoreline, int edge) {
+        int edgeX = shoreline.getX(edge);
+        int edgeY = shoreline.getY(edge);
+        int edgeZ = shoreline.getZ(edge);
+        // Only open water of large bodies gets waves
+        if (!isLargeWaterBody(edgeX, edgeY, edgeZ)) {
+            return;
+        }
 
-                    // Schedule wave group if it's an edge, not surrounded, and in a large water body
-                    if (isEdge && waterNeighbors < 4 && isLargeWaterBody(world, checkPos)) {
-                        // Calculate base spawn position (center of block, offset toward shore)
-                        double baseX = checkPos.getX() + 0.5 - normalX * 0.25; // Offset toward shore
-                        double baseY = checkPos.getY() + 1.0; // At water surface
-                        double baseZ = checkPos.getZ() + 0.5 - normalZ * 0.25;
-
-                        // Schedule a group of particles with random delay
-                        int waveDelay = tickCounter + random.nextInt(WAVE_SPAWN_DELAY_RANGE);
-                        for (int i = 0; i < PARTICLES_PER_GROUP; i++) {
-                            // Offset along shoreline
-                            float offset = (i - (PARTICLES_PER_GROUP - 1) / 2.0f) * GROUP_SPREAD;
-                            // Random offsets for less uniformity
-                            float randomAlong = (random.nextFloat() - 0.5f) * RANDOM_OFFSET;
-                            float randomNormal = (random.nextFloat() - 0.5f) * RANDOM_OFFSET;
-                            // Y variation to prevent Z-fighting
-                            double yOffset = (random.nextFloat() - 0.5f) * Y_OFFSET;
-                            // Calculate spawn position
-                            double px = baseX + -normalZ * (offset + randomAlong) + normalX * randomNormal;
-                            double py = baseY + yOffset;
-                            double pz = baseZ + normalX * (offset + randomAlong) + normalZ * randomNormal;
-
-                            // Per-particle cliff check and height calculation
-                            double cliffHeight = 0.0;
-                            BlockPos particlePos = new BlockPos((int)px, (int)py, (int)pz);
-                            for (Direction dir : Direction.Type.HORIZONTAL) {
-                                BlockPos neighborPos = particlePos.offset(dir);
-                                BlockState neighborState = world.getBlockState(neighborPos);
-                                if (neighborState.isSolidBlock(world, neighborPos) && !neighborState.isOf(Blocks.WATER)) {
-                                    // Calculate height difference
-                                    int neighborTopY = world.getTopY(Heightmap.Type.MOTION_BLOCKING_NO_LEAVES, neighborPos.getX(), neighborPos.getZ());
-                                    int heightDiff = neighborTopY - particlePos.getY();
-                                    if (heightDiff >= 2) {
-                                        cliffHeight = Math.max(cliffHeight, heightDiff);
-                                    }
-                                }
-                            }
-
-                            // Schedule Wave particle
-                            pendingSpawns.add(new PendingSpawn(
-                                    WaterParticleTypes.WAVE, px, py, pz,
-                                    normalX, cliffHeight, normalZ, waveDelay));
-                            // Schedule Foam particle
-                            pendingSpawns.add(new PendingSpawn(
-                                    WaterParticleTypes.FOAM, px, py, pz,
-                                    normalX, cliffHeight, normalZ, waveDelay));
-
-                            // Schedule splash particles for cliffs less frequently
-                            if (cliffHeight > 0 && random.nextFloat() < 0.2f) {
-                                int splashCount = Math.min(2, (int) (cliffHeight * 0.25)); // 0.25 particles per block, capped at 2
-                                for (int j = 0; j < splashCount; j++) {
-                                    // Spawn 1 block above water with slight randomization
-                                    double splashX = px + random.nextGaussian() * 0.2;
-                                    double splashY = baseY + 1.0; // 1 block above water surface
-                                    double splashZ = pz + random.nextGaussian() * 0.2;
-                                    // Choose splash type based on cliff height
-                                    ParticleEffect splashType = (cliffHeight >= SPLASH_HEIGHT_THRESHOLD && random.nextFloat() < 0.3f)
-                                            ? WaterParticleTypes.BIGSPLASH : WaterParticleTypes.SPLASH;
-                                    // Schedule splash with random delay
-                                    int splashDelay = waveDelay + random.nextInt(SPLASH_SPAWN_DELAY_RANGE);
-                                    pendingSpawns.add(new PendingSpawn(
-                                            splashType, splashX, splashY, splashZ,
-                                            0, 0, 0, splashDelay));
-                                }
-                            }
-                        }
-                    }
-                }
+        float normalX = shoreline.getNormalX(edge);
+        float normalZ = shoreline.getNormalZ(edge);
+        if (normalX == 0.0f && normalZ == 0.0f) {
+            normalX = random.nextFloat() - 0.5f; // Fallback random direction
+            normalZ = random.nextFloat() - 0.5f;
+            float length = (float) Math.sqrt(normalX * normalX + normalZ * normalZ);
+            if (length > 0) {
+                normalX /= length;
+                normalZ /= length;
             }
         }
-    }
-
-    private static boolean isLargeWaterBody(ClientWorld world, BlockPos pos) {
-        int waterCount = 0;
-
-        for (int x = -CHECK_RADIUS; x <= CHECK_RADIUS; x++) {
-            for (int z = -CHECK_RADIUS; z <= CHECK_RADIUS; z++) {
-                BlockPos checkPos = pos.add(x, 0, z);
-                BlockState state = world.getBlockState(checkPos);
-                if (state.isOf(Blocks.WATER)) {
-                    BlockState aboveState = world.getBlockState(checkPos.up());
-                    if (aboveState.isAir() || !aboveState.isOf(Blocks.WATER)) {
-                        waterCount++;
-                    }
+        double cliffHeight = shoreline.getCliffHeight(edge);
+
+        // Calculate base spawn position (center of block, offset toward shore)
+        double baseX = edgeX + 0.5 - normalX * 0.25; // Offset toward shore
+        double baseY = edgeY + 1.0; // At water surface
+        double baseZ = edgeZ + 0.5 - normalZ * 0.25;
+
+        // Schedule a group of particles with random delay
+        int waveDelay = random.nextInt(WAVE_SPAWN_DELAY_RANGE);
+        for (int i = 0; i < PARTICLES_PER_GROUP; i++) {
+            // Offset along shoreline
+            float offset = (i - (PARTICLES_PER_GROUP - 1) / 2.0f) * GROUP_SPREAD;
+            // Random offsets for less uniformity
+            float randomAlong = (random.nextFloat() - 0.5f) * RANDOM_OFFSET;
+            float randomNormal = (random.nextFloat() - 0.5f) * RANDOM_OFFSET;
+            // Y variation to prevent Z-fighting
+            double yOffset = (random.nextFloat() - 0.5f) * Y_OFFSET;
+            // Calculate spawn position
+            double px = baseX + -normalZ * (offset + randomAlong) + normalX * randomNormal;
+            double py = baseY + yOffset;
+            double pz = baseZ + normalX * (offset + randomAlong) + normalZ * randomNormal;
+
+            // Schedule Wave particle
+            DeferredSpawnWheel.schedule(WaterParticleTypes.WAVE, px, py, pz,
+                    normalX, cliffHeight, normalZ, waveDelay);
+            // Schedule Foam particle
+            DeferredSpawnWheel.schedule(WaterParticleTypes.FOAM, px, py, pz,
+                    normalX, cliffHeight, normalZ, waveDelay);
+
+            // Schedule splash particles for cliffs less frequently
+            if (cliffHeight > 0 && random.nextFloat() < 0.2f) {
+                int splashCount = Math.min(2, (int) (cliffHeight * 0.25)); // 0.25 particles per block, capped at 2
+                for (int j = 0; j < splashCount; j++) {
+                    // Spawn 1 block above water with slight randomization
+                    double splashX = px + random.nextGaussian() * 0.2;
+                    double splashY = baseY + 1.0; // 1 block above water surface
+                    double splashZ = pz + random.nextGaussian() * 0.2;
+                    // Choose splash type based on cliff height
+                    ParticleEffect splashType = (cliffHeight >= SPLASH_HEIGHT_THRESHOLD && random.nextFloat() < 0.3f)
+                            ? WaterParticleTypes.BIGSPLASH : WaterParticleTypes.SPLASH;
+                    // Schedule splash with random delay
+                    int splashDelay = waveDelay + random.nextInt(SPLASH_SPAWN_DELAY_RANGE);
+                    DeferredSpawnWheel.schedule(splashType, splashX, splashY, splashZ,
+                            0, 0, 0, splashDelay);
                 }
             }
         }
+    }
 
-        return waterCount >= MIN_WATER_BLOCKS;
+    // The body must be large, and the water around the edge open enough that narrow inlets of a lake stay calm
+    private static boolean isLargeWaterBody(int x, int y, int z) {
+        if (WaterBodyTracker.getBodySize(x, y, z) < MIN_BODY_SIZE) {
+            return false;
+        }
+        int side = windowRadius * 2 + 1;
+        int water = surfaceMask.count(x - windowRadius, z - windowRadius, x + windowRadius, z + windowRadius);
+        return water >= Math.ceil(side * side * MIN_WINDOW_FILL);
     }
-}
\ No newline at end of file
+}
@@ -1,14 +1,15 @@
 package com.niuhi.weather.wind;
 
 import com.niuhi.Windswept;
+import com.niuhi.particle.SpawnGate;
 import com.niuhi.particle.weather.wind.WindParticleTypes;
+import com.niuhi.world.ColumnCache;
 import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientTickEvents;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.world.ClientWorld;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.Vec3d;
 import net.minecraft.util.math.random.Random;
-import net.minecraft.world.Heightmap;
 
 public class WindSystem {
     private final ClientWorld world;
@@ -103,13 +104,15 @@ public class WindSystem {
             int x = center.getX() + (int) (random.nextGaussian() * radius);
             int z = center.getZ() + (int) (random.nextGaussian() * radius);
 
-            int groundY = world.getTopY(Heightmap.Type.MOTION_BLOCKING_NO_LEAVES, x, z);
+            int groundY = ColumnCache.getTopY(world, x, z);
             double y = groundY + 1 + random.nextDouble() * 5;
 
             if (!world.getBlockState(BlockPos.ofFloored(x, y, z)).isAir()) {
                 y = groundY + 1;
             }
-            client.particleManager.addParticle(WindParticleTypes.WIND, x, y, z, 0, 0, 0);
+            if (SpawnGate.test(world, x, y, z)) {
+                client.particleManager.addParticle(WindParticleTypes.WIND, x, y, z, 0, 0, 0);
+            }
         }
     }
 
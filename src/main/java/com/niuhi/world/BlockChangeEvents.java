@@ -0,0 +1,23 @@
+package com.niuhi.world;
+
+import net.fabricmc.fabric.api.event.Event;
+import net.fabricmc.fabric.api.event.EventFactory;
+import net.minecraft.block.BlockState;
+import net.minecraft.client.world.ClientWorld;
+import net.minecraft.util.math.BlockPos;
+
+public class BlockChangeEvents {
+    // Fired on the client thread whenever a block in the client world changes (server updates and local prediction)
+    // The position may be mutable, listeners must copy it if they keep it around
+    public static final Event<BlockChanged> BLOCK_CHANGED = EventFactory.createArrayBacked(BlockChanged.class,
+            listeners -> (world, pos, oldState, newState) -> {
+                for (BlockChanged listener : listeners) {
+                    listener.onBlockChanged(world, pos, oldState, newState);
+                }
+            });
+
+    @FunctionalInterface
+    public interface BlockChanged {
+        void onBlockChanged(ClientWorld world, BlockPos pos, BlockState oldState, BlockState newState);
+    }
+}
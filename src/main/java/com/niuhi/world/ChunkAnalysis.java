@@ -0,0 +1,278 @@
+package com.niuhi.world;
+
+import com.niuhi.water.Shoreline;
+import com.niuhi.water.WaterfallColumnScanner;
+import com.niuhi.water.WaterfallIndex.Waterfall;
+import net.minecraft.block.BlockState;
+import net.minecraft.registry.tag.FluidTags;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.world.Heightmap;
+import net.minecraft.world.chunk.PalettedContainer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+
+// Immutable result of analysing one chunk snapshot on the environment worker
+// Tick handlers only read these, they never touch the blocks the values were computed from
+public class ChunkAnalysis {
+    public static final int NO_SURFACE = Integer.MIN_VALUE;
+    public static final int NO_COMPONENT = -1;
+    private static final Waterfall[] NO_WATERFALLS = new Waterfall[0];
+    private static final Predicate<BlockState> MOTION_BLOCKING_NO_LEAVES = Heightmap.Type.MOTION_BLOCKING_NO_LEAVES.getBlockPredicate();
+    private static final Predicate<BlockState> MOTION_BLOCKING = Heightmap.Type.MOTION_BLOCKING.getBlockPredicate();
+    private static final int[] NO_COLUMNS = new int[0];
+
+    public final int chunkX;
+    public final int chunkZ;
+    final int version;
+    final int epoch;
+
+    private final int[] topY = new int[256]; // Same value as world.getTopY(MOTION_BLOCKING_NO_LEAVES)
+    private final int[] waterSurfaceY = new int[256]; // Y of the top water block per column, or NO_SURFACE
+    private final int[] component = new int[256]; // Local water component per column, or NO_COMPONENT
+    private int[] exposedWater = NO_COLUMNS; // Column indices of surface water that rain reaches, nothing (not even leaves) above
+    private int[] componentSize = new int[0];
+    private int[] componentMinX = new int[0];
+    private int[] componentMinZ = new int[0];
+    private int[] componentMaxX = new int[0];
+    private int[] componentMaxZ = new int[0];
+    private final Waterfall[][] waterfalls = new Waterfall[256][];
+    private int waterfallCount = 0;
+    private BlockPos[] waterfallImpacts = new BlockPos[0]; // Distinct impact positions
+    private Shoreline shoreline = Shoreline.EMPTY;
+
+    // Scratch stack for flood filling, analysis only runs on the worker thread
+    private static final int[] fillStack = new int[256];
+
+    private ChunkAnalysis(int chunkX, int chunkZ, int version, int epoch) {
+        this.chunkX = chunkX;
+        this.chunkZ = chunkZ;
+        this.version = version;
+        this.epoch = epoch;
+    }
+
+    public int getTopY(int x, int z) {
+        return topY[((z & 15) << 4) | (x & 15)];
+    }
+
+    public int getWaterSurfaceY(int x, int z) {
+        return waterSurfaceY[((z & 15) << 4) | (x & 15)];
+    }
+
+    // Dense list of column indices ((z << 4) | x), don't modify
+    public int[] getExposedWaterColumns() {
+        return exposedWater;
+    }
+
+    public int getComponent(int x, int z) {
+        return component[((z & 15) << 4) | (x & 15)];
+    }
+
+    public int getComponentCount() {
+        return componentSize.length;
+    }
+
+    public int getComponentSize(int component) {
+        return componentSize[component];
+    }
+
+    public int getComponentMinX(int component) {
+        return componentMinX[component];
+    }
+
+    public int getComponentMinZ(int component) {
+        return componentMinZ[component];
+    }
+
+    public int getComponentMaxX(int component) {
+        return componentMaxX[component];
+    }
+
+    public int getComponentMaxZ(int component) {
+        return componentMaxZ[component];
+    }
+
+    public boolean hasWaterfalls() {
+        return waterfallCount > 0;
+    }
+
+    // Waterfalls whose source lies in this column, or null
+    public Waterfall[] getWaterfalls(int index) {
+        return waterfalls[index];
+    }
+
+    public BlockPos[] getWaterfallImpacts() {
+        return waterfallImpacts;
+    }
+
+    public Shoreline getShoreline() {
+        return shoreline;
+    }
+
+    static ChunkAnalysis analyze(ChunkSnapshot snapshot, SnapshotView view, int epoch) {
+        ChunkAnalysis analysis = new ChunkAnalysis(snapshot.chunkX, snapshot.chunkZ, snapshot.version, epoch);
+        analysis.computeSurface(snapshot);
+        analysis.computeComponents();
+        if (analysis.getComponentCount() > 0) {
+            analysis.shoreline = Shoreline.build(analysis, view);
+        }
+        if (snapshot.hasFlowingWater) {
+            analysis.computeWaterfalls(snapshot, view);
+        }
+        return analysis;
+    }
+
+    // Heightmap and surface water, walking down each column from the highest non-empty section
+    private void computeSurface(ChunkSnapshot snapshot) {
+        int bottomY = snapshot.getBottomY();
+        Arrays.fill(topY, bottomY);
+        Arrays.fill(waterSurfaceY, NO_SURFACE);
+        boolean[] covered = new boolean[256]; // Leaves above the top block keep rain off it
+
+        int remaining = 256;
+        for (int sectionIndex = snapshot.sections.length - 1; sectionIndex >= 0 && remaining > 0; sectionIndex--) {
+            PalettedContainer<BlockState> section = snapshot.sections[sectionIndex];
+            if (section == null) {
+                continue;
+            }
+            int sectionY = ChunkSectionPos.getBlockCoord(snapshot.bottomSectionCoord + sectionIndex);
+            for (int z = 0; z < 16; z++) {
+                for (int x = 0; x < 16; x++) {
+                    int index = (z << 4) | x;
+                    if (topY[index] != bottomY) {
+                        continue; // Already found in a higher section
+                    }
+                    for (int y = 15; y >= 0; y--) {
+                        BlockState state = section.get(x, y, z);
+                        if (MOTION_BLOCKING_NO_LEAVES.test(state)) {
+                            topY[index] = sectionY + y + 1;
+                            if (state.getFluidState().isIn(FluidTags.WATER)) {
+                                waterSurfaceY[index] = sectionY + y;
+                            }
+                            remaining--;
+                            break;
+                        }
+                        covered[index] |= MOTION_BLOCKING.test(state); // Leaves
+                    }
+                }
+            }
+        }
+
+        int exposed = 0;
+        int[] columns = new int[256];
+        for (int index = 0; index < 256; index++) {
+            if (waterSurfaceY[index] != NO_SURFACE && !covered[index]) {
+                columns[exposed++] = index;
+            }
+        }
+        if (exposed > 0) {
+            exposedWater = Arrays.copyOf(columns, exposed);
+        }
+    }
+
+    // Flood fills the surface water columns into local components, 4-connected with at most one block of step
+    private void computeComponents() {
+        Arrays.fill(component, NO_COMPONENT);
+        int startX = chunkX << 4;
+        int startZ = chunkZ << 4;
+        int count = 0;
+
+        for (int start = 0; start < 256; start++) {
+            if (waterSurfaceY[start] == NO_SURFACE || component[start] != NO_COMPONENT) {
+                continue;
+            }
+            if (count == componentSize.length) {
+                int capacity = Math.max(4, count * 2);
+                componentSize = Arrays.copyOf(componentSize, capacity);
+                componentMinX = Arrays.copyOf(componentMinX, capacity);
+                componentMinZ = Arrays.copyOf(componentMinZ, capacity);
+                componentMaxX = Arrays.copyOf(componentMaxX, capacity);
+                componentMaxZ = Arrays.copyOf(componentMaxZ, capacity);
+            }
+            int current = count++;
+            componentMinX[current] = Integer.MAX_VALUE;
+            componentMinZ[current] = Integer.MAX_VALUE;
+            componentMaxX[current] = Integer.MIN_VALUE;
+            componentMaxZ[current] = Integer.MIN_VALUE;
+
+            int stackSize = 0;
+            fillStack[stackSize++] = start;
+            component[start] = current;
+            while (stackSize > 0) {
+                int index = fillStack[--stackSize];
+                int x = index & 15;
+                int z = index >> 4;
+                componentSize[current]++;
+                componentMinX[current] = Math.min(componentMinX[current], startX + x);
+                componentMinZ[current] = Math.min(componentMinZ[current], startZ + z);
+                componentMaxX[current] = Math.max(componentMaxX[current], startX + x);
+                componentMaxZ[current] = Math.max(componentMaxZ[current], startZ + z);
+
+                if (x > 0) stackSize = visit(index, index - 1, current, stackSize);
+                if (x < 15) stackSize = visit(index, index + 1, current, stackSize);
+                if (z > 0) stackSize = visit(index, index - 16, current, stackSize);
+                if (z < 15) stackSize = visit(index, index + 16, current, stackSize);
+            }
+        }
+
+        componentSize = Arrays.copyOf(componentSize, count);
+        componentMinX = Arrays.copyOf(componentMinX, count);
+        componentMinZ = Arrays.copyOf(componentMinZ, count);
+        componentMaxX = Arrays.copyOf(componentMaxX, count);
+        componentMaxZ = Arrays.copyOf(componentMaxZ, count);
+    }
+
+    private int visit(int from, int to, int current, int stackSize) {
+        if (component[to] == NO_COMPONENT && isConnected(waterSurfaceY[from], waterSurfaceY[to])) {
+            component[to] = current;
+            fillStack[stackSize++] = to;
+        }
+        return stackSize;
+    }
+
+    // Neighbouring columns belong to the same body when their surfaces are at most one block apart (river steps)
+    public static boolean isConnected(int surfaceY, int otherSurfaceY) {
+        return surfaceY != NO_SURFACE && otherSurfaceY != NO_SURFACE && Math.abs(surfaceY - otherSurfaceY) <= 1;
+    }
+
+    private void computeWaterfalls(ChunkSnapshot snapshot, SnapshotView view) {
+        // Start at the highest section that holds any water, everything above is dry
+        int topSection = snapshot.sections.length - 1;
+        while (topSection >= 0 && (snapshot.sectionFlags[topSection] & SectionFlags.WATER) == 0) {
+            topSection--;
+        }
+        if (topSection < 0) {
+            return;
+        }
+
+        int maxY = ChunkSectionPos.getBlockCoord(snapshot.bottomSectionCoord + topSection) + 15;
+        List<Waterfall> column = new ArrayList<>();
+        List<BlockPos> impacts = new ArrayList<>();
+        for (int index = 0; index < 256; index++) {
+            int x = (chunkX << 4) | (index & 15);
+            int z = (chunkZ << 4) | (index >> 4);
+            column.clear();
+            WaterfallColumnScanner.scanColumn(view, x, z, snapshot.getBottomY(), maxY,
+                    sectionCoord -> (snapshot.getSectionFlags(sectionCoord) & SectionFlags.WATER) != 0, (sourceY, impactY, intensity) ->
+                    column.add(new Waterfall(new BlockPos(x, sourceY, z), new BlockPos(x, impactY, z), intensity)));
+            if (column.isEmpty()) {
+                continue;
+            }
+            waterfalls[index] = column.toArray(NO_WATERFALLS);
+            waterfallCount += column.size();
+
+            // Sources in one column are emitted grouped by the pond they land in
+            BlockPos previous = null;
+            for (Waterfall waterfall : column) {
+                if (!waterfall.impact().equals(previous)) {
+                    previous = waterfall.impact();
+                    impacts.add(previous);
+                }
+            }
+        }
+        waterfallImpacts = impacts.toArray(new BlockPos[0]);
+    }
+}
@@ -0,0 +1,19 @@
+package com.niuhi.world;
+
+import net.fabricmc.fabric.api.event.Event;
+import net.fabricmc.fabric.api.event.EventFactory;
+
+public class ChunkAnalysisEvents {
+    // Fired on the client thread when a newer analysis of a loaded chunk has been published
+    public static final Event<Published> PUBLISHED = EventFactory.createArrayBacked(Published.class,
+            listeners -> analysis -> {
+                for (Published listener : listeners) {
+                    listener.onPublished(analysis);
+                }
+            });
+
+    @FunctionalInterface
+    public interface Published {
+        void onPublished(ChunkAnalysis analysis);
+    }
+}
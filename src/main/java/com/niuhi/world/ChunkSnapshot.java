@@ -0,0 +1,88 @@
+package com.niuhi.world;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.world.Heightmap;
+import net.minecraft.world.chunk.PalettedContainer;
+
+import java.util.BitSet;
+import java.util.function.Predicate;
+
+// Worker side copy of a chunk's block palettes
+// Sections are copied on the client thread and only ever read by the environment worker afterwards
+public class ChunkSnapshot {
+    private static final Predicate<BlockState> MOTION_BLOCKING_NO_LEAVES = Heightmap.Type.MOTION_BLOCKING_NO_LEAVES.getBlockPredicate();
+
+    final int chunkX;
+    final int chunkZ;
+    final int bottomSectionCoord;
+    final PalettedContainer<BlockState>[] sections; // Null for sections that are all air
+    final byte[] sectionFlags; // SectionFlags of every section, recomputed when it is replaced
+    int version;
+    boolean hasFlowingWater; // Only chunks with flowing water can hold waterfall sources
+    boolean hasWater; // Chunks without any water have neither waterfalls nor shorelines
+
+    @SuppressWarnings("unchecked")
+    ChunkSnapshot(int chunkX, int chunkZ, int bottomSectionCoord, int sectionCount) {
+        this.chunkX = chunkX;
+        this.chunkZ = chunkZ;
+        this.bottomSectionCoord = bottomSectionCoord;
+        this.sections = (PalettedContainer<BlockState>[]) new PalettedContainer[sectionCount];
+        this.sectionFlags = new byte[sectionCount];
+    }
+
+    // Replaces the changed sections with their fresh copies
+    void apply(PalettedContainer<BlockState>[] copies, BitSet changed, int version) {
+        for (int i = changed.nextSetBit(0); i >= 0 && i < sections.length; i = changed.nextSetBit(i + 1)) {
+            sections[i] = copies[i];
+            sectionFlags[i] = (byte) (copies[i] == null ? 0 : SectionFlags.compute(copies[i]));
+        }
+        this.version = version;
+
+        hasFlowingWater = false;
+        hasWater = false;
+        for (byte flags : sectionFlags) {
+            hasFlowingWater |= (flags & SectionFlags.FLOWING_WATER) != 0;
+            hasWater |= (flags & SectionFlags.WATER) != 0;
+        }
+    }
+
+    // Flags of the section at this section coordinate, 0 outside the snapshot
+    int getSectionFlags(int sectionCoord) {
+        int index = sectionCoord - bottomSectionCoord;
+        return index < 0 || index >= sectionFlags.length ? 0 : sectionFlags[index];
+    }
+
+    int getBottomY() {
+        return ChunkSectionPos.getBlockCoord(bottomSectionCoord);
+    }
+
+    int getHeight() {
+        return sections.length << 4;
+    }
+
+    BlockState getBlockState(int x, int y, int z) {
+        int index = ChunkSectionPos.getSectionCoord(y) - bottomSectionCoord;
+        if (index < 0 || index >= sections.length || sections[index] == null) {
+            return Blocks.AIR.getDefaultState();
+        }
+        return sections[index].get(x & 15, y & 15, z & 15);
+    }
+
+    // Heightmap value of a column, walking down from the highest non-empty section
+    int getTopY(int x, int z) {
+        for (int index = sections.length - 1; index >= 0; index--) {
+            PalettedContainer<BlockState> section = sections[index];
+            if (section == null) {
+                continue;
+            }
+            for (int y = 15; y >= 0; y--) {
+                if (MOTION_BLOCKING_NO_LEAVES.test(section.get(x & 15, y, z & 15))) {
+                    return ChunkSectionPos.getBlockCoord(bottomSectionCoord + index) + y + 1;
+                }
+            }
+        }
+        return getBottomY();
+    }
+}
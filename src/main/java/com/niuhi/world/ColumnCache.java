@@ -0,0 +1,192 @@
+package com.niuhi.world;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientChunkEvents;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientWorldEvents;
+import net.minecraft.client.world.ClientWorld;
+import net.minecraft.fluid.FluidState;
+import net.minecraft.registry.tag.FluidTags;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.Heightmap;
+
+// Surface information of every column of the loaded chunks, shared by the systems that used to probe the world themselves
+// A column is read from the world the first time it is asked for and kept until a block in it changes.
+// A block change only ever affects its own column, so only that column is recomputed
+public class ColumnCache {
+    public static final int NO_SURFACE = Integer.MIN_VALUE;
+    private static final byte TOP_VALID = 1; // Top Y and sky exposure are up to date
+    private static final byte WATER_VALID = 2; // Water surface and fluid height are up to date
+    private static final byte SKY_EXPOSED = 4; // Nothing above the top block stops rain, leaves included
+
+    private static final Long2ObjectMap<Columns> columnsByChunk = new Long2ObjectOpenHashMap<>();
+    private static Columns lastColumns = null; // Most lookups hit the chunk of the previous one
+    private static final BlockPos.Mutable scanPos = new BlockPos.Mutable();
+
+    private static class Columns {
+        final int chunkX;
+        final int chunkZ;
+        int version = 0; // Bumped on every block change in the chunk
+        final byte[] flags = new byte[256];
+        final int[] topY = new int[256]; // Same value as world.getTopY(MOTION_BLOCKING_NO_LEAVES)
+        final int[] waterSurfaceY = new int[256]; // Highest water block without water above it, or NO_SURFACE
+        final float[] fluidHeight = new float[256]; // Fluid height of that block, 1 for a full block
+
+        Columns(int chunkX, int chunkZ) {
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
+        }
+    }
+
+    public static void register() {
+        // A chunk sent again replaces the old one, so both load and unload drop its columns
+        ClientChunkEvents.CHUNK_LOAD.register((world, chunk) -> remove(chunk.getPos().toLong()));
+        ClientChunkEvents.CHUNK_UNLOAD.register((world, chunk) -> remove(chunk.getPos().toLong()));
+        BlockChangeEvents.BLOCK_CHANGED.register((world, pos, oldState, newState) -> {
+            Columns columns = columnsByChunk.get(ChunkPos.toLong(pos.getX() >> 4, pos.getZ() >> 4));
+            if (columns != null) {
+                columns.flags[index(pos.getX(), pos.getZ())] = 0;
+                columns.version++;
+            }
+        });
+        ClientWorldEvents.AFTER_CLIENT_WORLD_CHANGE.register((client, world) -> {
+            columnsByChunk.clear();
+            lastColumns = null;
+        });
+    }
+
+    // world.getTopY(MOTION_BLOCKING_NO_LEAVES) of the column
+    public static int getTopY(ClientWorld world, int x, int z) {
+        Columns columns = getColumns(world, x, z);
+        if (columns == null) {
+            return world.getBottomY();
+        }
+        int index = index(x, z);
+        if ((columns.flags[index] & TOP_VALID) == 0) {
+            computeTop(world, columns, index, x, z);
+        }
+        return columns.topY[index];
+    }
+
+    // Whether rain reaches the top block of the column
+    public static boolean isSkyExposed(ClientWorld world, int x, int z) {
+        Columns columns = getColumns(world, x, z);
+        if (columns == null) {
+            return false;
+        }
+        int index = index(x, z);
+        if ((columns.flags[index] & TOP_VALID) == 0) {
+            computeTop(world, columns, index, x, z);
+        }
+        return (columns.flags[index] & SKY_EXPOSED) != 0;
+    }
+
+    // Y of the highest water block below the top of the column that has no water above it, or NO_SURFACE
+    // This can be covered water (under ice or lily pads), compare with getTopY for open water
+    public static int getWaterSurfaceY(ClientWorld world, int x, int z) {
+        Columns columns = getColumns(world, x, z);
+        if (columns == null) {
+            return NO_SURFACE;
+        }
+        int index = index(x, z);
+        if ((columns.flags[index] & WATER_VALID) == 0) {
+            computeWater(world, columns, index, x, z);
+        }
+        return columns.waterSurfaceY[index];
+    }
+
+    // Exact height of the water surface (block Y plus fluid height), or Double.MIN_VALUE without water
+    public static double getWaterSurfaceHeight(ClientWorld world, int x, int z) {
+        Columns columns = getColumns(world, x, z);
+        if (columns == null) {
+            return Double.MIN_VALUE;
+        }
+        int index = index(x, z);
+        if ((columns.flags[index] & WATER_VALID) == 0) {
+            computeWater(world, columns, index, x, z);
+        }
+        int surfaceY = columns.waterSurfaceY[index];
+        return surfaceY == NO_SURFACE ? Double.MIN_VALUE : surfaceY + columns.fluidHeight[index];
+    }
+
+    // Like getWaterSurfaceHeight, but never reads the world: Double.NaN if the column hasn't been computed yet
+    public static double getCachedWaterSurfaceHeight(int x, int z) {
+        Columns columns = lastColumns != null && lastColumns.chunkX == x >> 4 && lastColumns.chunkZ == z >> 4
+                ? lastColumns : columnsByChunk.get(ChunkPos.toLong(x >> 4, z >> 4));
+        if (columns == null || (columns.flags[index(x, z)] & WATER_VALID) == 0) {
+            return Double.NaN;
+        }
+        int surfaceY = columns.waterSurfaceY[index(x, z)];
+        return surfaceY == NO_SURFACE ? Double.MIN_VALUE : surfaceY + columns.fluidHeight[index(x, z)];
+    }
+
+    // Changes whenever a block in the chunk changes, lets callers tell if values they derived are outdated
+    public static int getVersion(int chunkX, int chunkZ) {
+        Columns columns = columnsByChunk.get(ChunkPos.toLong(chunkX, chunkZ));
+        return columns == null ? 0 : columns.version;
+    }
+
+    private static Columns getColumns(ClientWorld world, int x, int z) {
+        int chunkX = x >> 4;
+        int chunkZ = z >> 4;
+        if (lastColumns != null && lastColumns.chunkX == chunkX && lastColumns.chunkZ == chunkZ) {
+            return lastColumns;
+        }
+        long chunkKey = ChunkPos.toLong(chunkX, chunkZ);
+        Columns columns = columnsByChunk.get(chunkKey);
+        if (columns == null) {
+            if (!world.getChunkManager().isChunkLoaded(chunkX, chunkZ)) {
+                return null;
+            }
+            columns = new Columns(chunkX, chunkZ);
+            columnsByChunk.put(chunkKey, columns);
+        }
+        lastColumns = columns;
+        return columns;
+    }
+
+    private static void computeTop(ClientWorld world, Columns columns, int index, int x, int z) {
+        int topY = world.getTopY(Heightmap.Type.MOTION_BLOCKING_NO_LEAVES, x, z);
+        boolean exposed = world.getTopY(Heightmap.Type.MOTION_BLOCKING, x, z) <= topY;
+        columns.topY[index] = topY;
+        columns.flags[index] = (byte) ((columns.flags[index] & ~SKY_EXPOSED) | TOP_VALID | (exposed ? SKY_EXPOSED : 0));
+    }
+
+    // Walks down from the top of the column, skipping sections that hold no water without touching their blocks
+    // Nothing above the top block is water, so the first water block found is the surface
+    private static void computeWater(ClientWorld world, Columns columns, int index, int x, int z) {
+        if ((columns.flags[index] & TOP_VALID) == 0) {
+            computeTop(world, columns, index, x, z);
+        }
+        int topY = columns.topY[index];
+        int surfaceY = NO_SURFACE;
+        float height = 0.0f;
+        for (int y = topY; y >= world.getBottomY(); y--) {
+            if (((y & 15) == 15 || y == topY) && !SectionFlags.hasAny(world, x, y, z, SectionFlags.WATER)) {
+                y &= ~15; // Continue with the top block of the next section down
+                continue;
+            }
+            FluidState fluidState = world.getFluidState(scanPos.set(x, y, z));
+            if (fluidState.isIn(FluidTags.WATER)) {
+                surfaceY = y;
+                height = fluidState.getHeight(world, scanPos);
+                break;
+            }
+        }
+        columns.waterSurfaceY[index] = surfaceY;
+        columns.fluidHeight[index] = height;
+        columns.flags[index] |= WATER_VALID;
+    }
+
+    private static void remove(long chunkKey) {
+        Columns columns = columnsByChunk.remove(chunkKey);
+        if (columns != null && columns == lastColumns) {
+            lastColumns = null;
+        }
+    }
+
+    private static int index(int x, int z) {
+        return ((z & 15) << 4) | (x & 15);
+    }
+}
@@ -0,0 +1,239 @@
+package com.niuhi.world;
+
+import com.niuhi.Windswept;
+import it.unimi.dsi.fastutil.longs.Long2IntMap;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongLinkedOpenHashSet;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientChunkEvents;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientTickEvents;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientWorldEvents;
+import net.minecraft.block.BlockState;
+import net.minecraft.client.world.ClientWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.world.chunk.ChunkSection;
+import net.minecraft.world.chunk.PalettedContainer;
+import net.minecraft.world.chunk.WorldChunk;
+
+import java.util.BitSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+// Analyses chunks on a background thread so tick handlers don't probe blocks themselves
+// The client thread copies the palettes of loaded and changed sections (time-sliced by the scan scheduler),
+// the worker keeps those copies, re-analyses the affected chunks and hands immutable results back through a queue
+public class EnvironmentWorker {
+    // Client thread state
+    private static final Long2IntMap loadVersions = new Long2IntOpenHashMap(); // Version counter when each loaded chunk arrived
+    private static final Long2ObjectMap<BitSet> dirtySections = new Long2ObjectOpenHashMap<>();
+    private static final LongLinkedOpenHashSet dirtyChunks = new LongLinkedOpenHashSet();
+    private static final Long2ObjectMap<ChunkAnalysis> published = new Long2ObjectOpenHashMap<>();
+    private static int epoch = 0; // Bumped on world change so results from the old world are dropped
+    private static int version = 0; // Stamped on every section update, only ever grows
+
+    // Handoff between the two threads
+    private static final ConcurrentLinkedQueue<Job> jobs = new ConcurrentLinkedQueue<>();
+    private static final ConcurrentLinkedQueue<ChunkAnalysis> results = new ConcurrentLinkedQueue<>();
+    private static Thread thread = null;
+
+    // Worker thread state, never touched from the client thread
+    private static final Long2ObjectMap<ChunkSnapshot> snapshots = new Long2ObjectOpenHashMap<>();
+    private static final LongLinkedOpenHashSet pendingAnalysis = new LongLinkedOpenHashSet();
+    private static int workerEpoch = 0;
+    private static SnapshotView view = null;
+
+    private sealed interface Job permits SectionUpdate, Unload, Clear {
+    }
+
+    private record SectionUpdate(long chunkKey, int version, int bottomSectionCoord,
+                                 PalettedContainer<BlockState>[] sections, BitSet changed) implements Job {
+    }
+
+    private record Unload(long chunkKey) implements Job {
+    }
+
+    private record Clear(int epoch) implements Job {
+    }
+
+    public static void register() {
+        ClientChunkEvents.CHUNK_LOAD.register(EnvironmentWorker::onChunkLoad);
+        ClientChunkEvents.CHUNK_UNLOAD.register((world, chunk) -> onChunkUnload(chunk.getPos().toLong()));
+        BlockChangeEvents.BLOCK_CHANGED.register((world, pos, oldState, newState) -> onBlockChanged(world, pos));
+        ClientWorldEvents.AFTER_CLIENT_WORLD_CHANGE.register((client, world) -> clear());
+        ClientTickEvents.START_CLIENT_TICK.register(client -> publishResults());
+        ScanScheduler.addTask(new SnapshotScan());
+
+        thread = new Thread(EnvironmentWorker::runWorker, "Windswept Environment Worker");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.NORM_PRIORITY - 1);
+        thread.start();
+    }
+
+    // Latest published analysis of a loaded chunk, or null while it hasn't been analysed yet
+    public static ChunkAnalysis getAnalysis(int chunkX, int chunkZ) {
+        return published.get(ChunkPos.toLong(chunkX, chunkZ));
+    }
+
+    private static void onChunkLoad(ClientWorld world, WorldChunk chunk) {
+        long chunkKey = chunk.getPos().toLong();
+        loadVersions.put(chunkKey, version);
+        BitSet all = new BitSet();
+        all.set(0, chunk.getSectionArray().length);
+        dirtySections.put(chunkKey, all);
+        dirtyChunks.add(chunkKey);
+    }
+
+    private static void onChunkUnload(long chunkKey) {
+        loadVersions.remove(chunkKey);
+        dirtySections.remove(chunkKey);
+        dirtyChunks.remove(chunkKey);
+        published.remove(chunkKey);
+        submit(new Unload(chunkKey));
+    }
+
+    private static void onBlockChanged(ClientWorld world, BlockPos pos) {
+        long chunkKey = ChunkPos.toLong(pos.getX() >> 4, pos.getZ() >> 4);
+        int sectionIndex = world.sectionCoordToIndex(ChunkSectionPos.getSectionCoord(pos.getY()));
+        if (!loadVersions.containsKey(chunkKey) || sectionIndex < 0 || sectionIndex >= world.countVerticalSections()) {
+            return;
+        }
+        BitSet changed = dirtySections.get(chunkKey);
+        if (changed == null) {
+            changed = new BitSet();
+            dirtySections.put(chunkKey, changed);
+        }
+        changed.set(sectionIndex);
+        dirtyChunks.add(chunkKey);
+    }
+
+    // One unit copies the changed sections of one chunk, many block changes in a chunk collapse into one copy
+    private static class SnapshotScan implements ScanScheduler.ScanTask {
+        @Override
+        public boolean hasWork() {
+            return !dirtyChunks.isEmpty();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void processUnit(ClientWorld world) {
+            long chunkKey = dirtyChunks.removeFirstLong();
+            BitSet changed = dirtySections.remove(chunkKey);
+            int chunkX = ChunkPos.getPackedX(chunkKey);
+            int chunkZ = ChunkPos.getPackedZ(chunkKey);
+            if (changed == null || !world.getChunkManager().isChunkLoaded(chunkX, chunkZ)) {
+                return;
+            }
+
+            ChunkSection[] sections = world.getChunk(chunkX, chunkZ).getSectionArray();
+            PalettedContainer<BlockState>[] copies = (PalettedContainer<BlockState>[]) new PalettedContainer[sections.length];
+            for (int i = changed.nextSetBit(0); i >= 0 && i < sections.length; i = changed.nextSetBit(i + 1)) {
+                copies[i] = sections[i].isEmpty() ? null : sections[i].getBlockStateContainer().copy();
+            }
+            submit(new SectionUpdate(chunkKey, ++version, world.getBottomSectionCoord(), copies, changed));
+        }
+    }
+
+    private static void publishResults() {
+        ChunkAnalysis analysis;
+        while ((analysis = results.poll()) != null) {
+            long chunkKey = ChunkPos.toLong(analysis.chunkX, analysis.chunkZ);
+            // Drop results for other worlds, unloaded chunks, copies taken before the chunk was last loaded,
+            // and anything older than what is already published
+            if (analysis.epoch != epoch || !loadVersions.containsKey(chunkKey) || analysis.version <= loadVersions.get(chunkKey)) {
+                continue;
+            }
+            ChunkAnalysis current = published.get(chunkKey);
+            if (current != null && current.version > analysis.version) {
+                continue;
+            }
+            published.put(chunkKey, analysis);
+            ChunkAnalysisEvents.PUBLISHED.invoker().onPublished(analysis);
+        }
+    }
+
+    private static void clear() {
+        loadVersions.clear();
+        dirtySections.clear();
+        dirtyChunks.clear();
+        published.clear();
+        epoch++;
+        submit(new Clear(epoch));
+    }
+
+    private static void submit(Job job) {
+        jobs.add(job);
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    private static void runWorker() {
+        while (true) {
+            Job job;
+            while ((job = jobs.poll()) != null) {
+                apply(job);
+            }
+            if (pendingAnalysis.isEmpty()) {
+                LockSupport.park();
+                continue;
+            }
+
+            // One chunk at a time, so new jobs are picked up between analyses
+            ChunkSnapshot snapshot = snapshots.get(pendingAnalysis.removeFirstLong());
+            if (snapshot == null) {
+                continue;
+            }
+            try {
+                view.reset();
+                results.add(ChunkAnalysis.analyze(snapshot, view, workerEpoch));
+            } catch (RuntimeException e) {
+                Windswept.LOGGER.warn("Failed to analyse chunk [{}, {}]", snapshot.chunkX, snapshot.chunkZ, e);
+            }
+        }
+    }
+
+    private static void apply(Job job) {
+        switch (job) {
+            case SectionUpdate update -> {
+                ChunkSnapshot snapshot = snapshots.get(update.chunkKey());
+                int chunkX = ChunkPos.getPackedX(update.chunkKey());
+                int chunkZ = ChunkPos.getPackedZ(update.chunkKey());
+                if (snapshot == null) {
+                    snapshot = new ChunkSnapshot(chunkX, chunkZ, update.bottomSectionCoord(), update.sections().length);
+                    snapshots.put(update.chunkKey(), snapshot);
+                }
+                if (view == null) {
+                    view = new SnapshotView(snapshots, snapshot.getBottomY(), snapshot.getHeight());
+                }
+                snapshot.apply(update.sections(), update.changed(), update.version());
+                pendingAnalysis.add(update.chunkKey());
+                // Pond and shore checks read one block into the neighbours, so their border columns may change too
+                queueNeighbour(chunkX + 1, chunkZ);
+                queueNeighbour(chunkX - 1, chunkZ);
+                queueNeighbour(chunkX, chunkZ + 1);
+                queueNeighbour(chunkX, chunkZ - 1);
+            }
+            case Unload unload -> {
+                snapshots.remove(unload.chunkKey());
+                pendingAnalysis.remove(unload.chunkKey());
+            }
+            case Clear clear -> {
+                snapshots.clear();
+                pendingAnalysis.clear();
+                workerEpoch = clear.epoch();
+                view = null; // The next world may have a different height
+            }
+        }
+    }
+
+    private static void queueNeighbour(int chunkX, int chunkZ) {
+        long chunkKey = ChunkPos.toLong(chunkX, chunkZ);
+        ChunkSnapshot neighbour = snapshots.get(chunkKey);
+        if (neighbour != null && neighbour.hasWater) {
+            pendingAnalysis.add(chunkKey);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.niuhi.world;
+
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientTickEvents;
+import net.minecraft.client.world.ClientWorld;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Spreads the area scans of the environment systems over several ticks
+// Every system splits its scan into small work units (column strips, chunks, ...), and each tick the
+// scheduler runs units round-robin until the time budget is used up, continuing where it stopped next tick
+public class ScanScheduler {
+    private static final List<ScanTask> tasks = new ArrayList<>();
+    private static int nextTask = 0;
+    private static int budgetMicros = 500; // Time each tick may spend on scan work (0.5 ms)
+
+    public interface ScanTask {
+        // True while the task has units left in its current pass
+        boolean hasWork();
+
+        // Processes the next unit and advances the task's own cursor
+        void processUnit(ClientWorld world);
+    }
+
+    public static void register() {
+        ClientTickEvents.END_CLIENT_TICK.register(client -> {
+            if (client.world != null && client.player != null) {
+                run(client.world);
+            }
+        });
+    }
+
+    public static void addTask(ScanTask task) {
+        tasks.add(task);
+    }
+
+    public static int getBudgetMicros() {
+        return budgetMicros;
+    }
+
+    public static void setBudgetMicros(int micros) {
+        budgetMicros = Math.max(0, micros);
+    }
+
+    private static void run(ClientWorld world) {
+        if (tasks.isEmpty()) {
+            return;
+        }
+
+        // At least one unit always runs so a tiny budget still makes progress
+        long deadline = System.nanoTime() + budgetMicros * 1000L;
+        int idleTasks = 0;
+        while (idleTasks < tasks.size()) {
+            ScanTask task = tasks.get(nextTask);
+            nextTask = (nextTask + 1) % tasks.size();
+            if (!task.hasWork()) {
+                idleTasks++;
+                continue;
+            }
+            idleTasks = 0;
+            task.processUnit(world);
+            if (System.nanoTime() >= deadline) {
+                break;
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.niuhi.world;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientChunkEvents;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientWorldEvents;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.client.world.ClientWorld;
+import net.minecraft.fluid.Fluids;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.world.chunk.ChunkSection;
+import net.minecraft.world.chunk.PalettedContainer;
+
+import java.util.Arrays;
+
+// Per section summary of what a 16x16x16 section contains, read from its block state palette
+// Palettes can keep entries that are no longer placed, so a set bit means "may contain" and a clear bit means "doesn't"
+public class SectionFlags {
+    public static final int STILL_WATER = 1;
+    public static final int FLOWING_WATER = 2;
+    public static final int WATER = STILL_WATER | FLOWING_WATER;
+    public static final int SOFT_GROUND = 4; // Snow, sand or mud
+    private static final byte UNKNOWN = -1;
+
+    // Flags per vertical section of every loaded chunk, computed lazily and reset when a block in the section changes
+    private static final Long2ObjectMap<byte[]> flagsByChunk = new Long2ObjectOpenHashMap<>();
+
+    public static void register() {
+        ClientChunkEvents.CHUNK_UNLOAD.register((world, chunk) -> flagsByChunk.remove(chunk.getPos().toLong()));
+        BlockChangeEvents.BLOCK_CHANGED.register((world, pos, oldState, newState) -> {
+            byte[] flags = flagsByChunk.get(ChunkPos.toLong(pos.getX() >> 4, pos.getZ() >> 4));
+            int index = world.sectionCoordToIndex(ChunkSectionPos.getSectionCoord(pos.getY()));
+            if (flags != null && index >= 0 && index < flags.length) {
+                flags[index] = UNKNOWN;
+            }
+        });
+        ClientWorldEvents.AFTER_CLIENT_WORLD_CHANGE.register((client, world) -> flagsByChunk.clear());
+    }
+
+    // Flags of the section holding this block, 0 outside the world or in unloaded chunks
+    public static int get(ClientWorld world, int x, int y, int z) {
+        int index = world.sectionCoordToIndex(ChunkSectionPos.getSectionCoord(y));
+        if (index < 0 || index >= world.countVerticalSections()) {
+            return 0;
+        }
+        int chunkX = x >> 4;
+        int chunkZ = z >> 4;
+        long chunkKey = ChunkPos.toLong(chunkX, chunkZ);
+        byte[] flags = flagsByChunk.get(chunkKey);
+        if (flags == null) {
+            if (!world.getChunkManager().isChunkLoaded(chunkX, chunkZ)) {
+                return 0;
+            }
+            flags = new byte[world.countVerticalSections()];
+            Arrays.fill(flags, UNKNOWN);
+            flagsByChunk.put(chunkKey, flags);
+        }
+        if (flags[index] == UNKNOWN) {
+            ChunkSection section = world.getChunk(chunkX, chunkZ).getSection(index);
+            flags[index] = (byte) (section.isEmpty() ? 0 : compute(section.getBlockStateContainer()));
+        }
+        return flags[index];
+    }
+
+    public static boolean hasAny(ClientWorld world, int x, int y, int z, int mask) {
+        return (get(world, x, y, z) & mask) != 0;
+    }
+
+    // Only looks at palette entries, never at the 4096 blocks themselves
+    public static int compute(PalettedContainer<BlockState> container) {
+        int flags = 0;
+        if (container.hasAny(state -> state.getFluidState().isOf(Fluids.WATER))) {
+            flags |= STILL_WATER;
+        }
+        if (container.hasAny(state -> state.getFluidState().isOf(Fluids.FLOWING_WATER))) {
+            flags |= FLOWING_WATER;
+        }
+        if (container.hasAny(SectionFlags::isSoftGround)) {
+            flags |= SOFT_GROUND;
+        }
+        return flags;
+    }
+
+    private static boolean isSoftGround(BlockState state) {
+        return state.isOf(Blocks.SNOW) || state.isOf(Blocks.SNOW_BLOCK) || state.isOf(Blocks.POWDER_SNOW) ||
+                state.isOf(Blocks.SAND) || state.isOf(Blocks.RED_SAND) || state.isOf(Blocks.SUSPICIOUS_SAND) ||
+                state.isOf(Blocks.MUD) || state.isOf(Blocks.PACKED_MUD);
+    }
+}
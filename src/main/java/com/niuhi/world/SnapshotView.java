@@ -0,0 +1,80 @@
+package com.niuhi.world;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.block.entity.BlockEntity;
+import net.minecraft.fluid.FluidState;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.BlockView;
+
+// Block access over the worker's snapshots, so column scanners written against BlockView run off thread
+// Blocks in chunks without a snapshot read as air
+public class SnapshotView implements BlockView {
+    private final Long2ObjectMap<ChunkSnapshot> snapshots;
+    private final int bottomY;
+    private final int height;
+    private ChunkSnapshot lastSnapshot = null; // Most reads stay inside one chunk
+
+    SnapshotView(Long2ObjectMap<ChunkSnapshot> snapshots, int bottomY, int height) {
+        this.snapshots = snapshots;
+        this.bottomY = bottomY;
+        this.height = height;
+    }
+
+    @Override
+    public BlockState getBlockState(BlockPos pos) {
+        int chunkX = pos.getX() >> 4;
+        int chunkZ = pos.getZ() >> 4;
+        ChunkSnapshot snapshot = lastSnapshot;
+        if (snapshot == null || snapshot.chunkX != chunkX || snapshot.chunkZ != chunkZ) {
+            snapshot = snapshots.get(ChunkPos.toLong(chunkX, chunkZ));
+            if (snapshot == null) {
+                return Blocks.AIR.getDefaultState();
+            }
+            lastSnapshot = snapshot;
+        }
+        return snapshot.getBlockState(pos.getX(), pos.getY(), pos.getZ());
+    }
+
+    // Heightmap value of a column (world.getTopY with MOTION_BLOCKING_NO_LEAVES), the bottom in chunks without a snapshot
+    public int getTopY(int x, int z) {
+        int chunkX = x >> 4;
+        int chunkZ = z >> 4;
+        ChunkSnapshot snapshot = lastSnapshot;
+        if (snapshot == null || snapshot.chunkX != chunkX || snapshot.chunkZ != chunkZ) {
+            snapshot = snapshots.get(ChunkPos.toLong(chunkX, chunkZ));
+            if (snapshot == null) {
+                return bottomY;
+            }
+            lastSnapshot = snapshot;
+        }
+        return snapshot.getTopY(x, z);
+    }
+
+    @Override
+    public FluidState getFluidState(BlockPos pos) {
+        return getBlockState(pos).getFluidState();
+    }
+
+    @Override
+    public BlockEntity getBlockEntity(BlockPos pos) {
+        return null;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public int getBottomY() {
+        return bottomY;
+    }
+
+    // Snapshots can be replaced between analyses, don't hold on to an old one
+    void reset() {
+        lastSnapshot = null;
+    }
+}
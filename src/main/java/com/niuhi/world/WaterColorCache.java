@@ -0,0 +1,82 @@
+package com.niuhi.world;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientChunkEvents;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientWorldEvents;
+import net.minecraft.client.particle.Particle;
+import net.minecraft.client.world.ClientWorld;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.world.biome.source.BiomeCoords;
+
+import java.util.Arrays;
+
+// Biome water colors of the loaded chunks, already unpacked into float RGB for particle tinting
+// Biomes are stored per 4x4x4 cell, so the colors are kept per cell as well: the first particle in a cell
+// looks the biome up and every later one is an array read
+public class WaterColorCache {
+    private static final int CELLS_PER_SECTION = 64;
+
+    // Three floats per cell, red is NaN until the cell has been looked up
+    private static final Long2ObjectMap<float[]> colorsByChunk = new Long2ObjectOpenHashMap<>();
+    private static final float[] uncached = new float[3]; // Color of a lookup outside the loaded chunks
+    private static int lookupOffset = 0; // Where the last lookup's color starts in the array it returned
+
+    public static void register() {
+        // Biomes come with the chunk data, a chunk sent again may bring different ones
+        ClientChunkEvents.CHUNK_LOAD.register((world, chunk) -> colorsByChunk.remove(chunk.getPos().toLong()));
+        ClientChunkEvents.CHUNK_UNLOAD.register((world, chunk) -> colorsByChunk.remove(chunk.getPos().toLong()));
+        ClientWorldEvents.AFTER_CLIENT_WORLD_CHANGE.register((client, world) -> colorsByChunk.clear());
+    }
+
+    // Tints the particle with the water color of the biome at its position
+    public static void apply(Particle particle, ClientWorld world, double x, double y, double z) {
+        float[] colors = lookup(world, x, y, z);
+        particle.setColor(colors[lookupOffset], colors[lookupOffset + 1], colors[lookupOffset + 2]);
+    }
+
+    // Writes the water color of the biome at the position into row index of the three arrays
+    public static void get(ClientWorld world, double x, double y, double z, float[] red, float[] green, float[] blue, int index) {
+        float[] colors = lookup(world, x, y, z);
+        red[index] = colors[lookupOffset];
+        green[index] = colors[lookupOffset + 1];
+        blue[index] = colors[lookupOffset + 2];
+    }
+
+    // Array holding the color at the position, starting at lookupOffset. Only used on the client thread
+    private static float[] lookup(ClientWorld world, double x, double y, double z) {
+        int blockX = MathHelper.floor(x);
+        int blockY = MathHelper.clamp(MathHelper.floor(y), world.getBottomY(), world.getTopYInclusive());
+        int blockZ = MathHelper.floor(z);
+        int biomeX = BiomeCoords.fromBlock(blockX);
+        int biomeY = BiomeCoords.fromBlock(blockY);
+        int biomeZ = BiomeCoords.fromBlock(blockZ);
+        long chunkKey = ChunkPos.toLong(blockX >> 4, blockZ >> 4);
+        float[] colors = colorsByChunk.get(chunkKey);
+        if (colors == null) {
+            if (!world.getChunkManager().isChunkLoaded(blockX >> 4, blockZ >> 4)) {
+                // Nothing would evict it, so don't cache (no biome data there anyway)
+                unpack(world.getBiomeForNoiseGen(biomeX, biomeY, biomeZ).value().getWaterColor(), uncached, 0);
+                lookupOffset = 0;
+                return uncached;
+            }
+            colors = new float[world.countVerticalSections() * CELLS_PER_SECTION * 3];
+            Arrays.fill(colors, Float.NaN);
+            colorsByChunk.put(chunkKey, colors);
+        }
+
+        int cell = world.sectionCoordToIndex(blockY >> 4) * CELLS_PER_SECTION + ((biomeY & 3) << 4 | (biomeZ & 3) << 2 | (biomeX & 3));
+        lookupOffset = cell * 3;
+        if (Float.isNaN(colors[lookupOffset])) {
+            unpack(world.getBiomeForNoiseGen(biomeX, biomeY, biomeZ).value().getWaterColor(), colors, lookupOffset);
+        }
+        return colors;
+    }
+
+    private static void unpack(int waterColor, float[] colors, int offset) {
+        colors[offset] = ((waterColor >> 16) & 0xFF) / 255.0f;
+        colors[offset + 1] = ((waterColor >> 8) & 0xFF) / 255.0f;
+        colors[offset + 2] = (waterColor & 0xFF) / 255.0f;
+    }
+}